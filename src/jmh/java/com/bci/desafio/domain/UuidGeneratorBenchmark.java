@@ -0,0 +1,100 @@
+package com.bci.desafio.domain;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts millions of rows keyed by random (v4) or time ordered (v7) UUIDs into a file backed H2 table with the
+ * same primary key as {@code users}, reporting the time of the whole load and, as the {@code databaseBytes}
+ * counter, the size of the database file once it is checkpointed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class UuidGeneratorBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"random", "timeOrdered"})
+    private String generator;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Path directory;
+    private Connection connection;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Storage {
+        public long databaseBytes;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("uuid-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:" + directory.resolve("ids").toAbsolutePath(), "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table ids (id uuid not null, payload varchar(64), constraint pk_ids primary key (id))");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        for (File file : directory.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void insert(Storage storage) throws SQLException {
+        boolean timeOrdered = "timeOrdered".equals(generator);
+        try (PreparedStatement insert = connection.prepareStatement("insert into ids (id, payload) values (?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setObject(1, timeOrdered ? TimeOrderedUuidGenerator.next() : UUID.randomUUID());
+                insert.setString(2, "charlie_01@correo.com");
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("checkpoint sync");
+        }
+        storage.databaseBytes = directory.resolve("ids.mv.db").toFile().length();
+    }
+}
@@ -0,0 +1,107 @@
+package com.bci.desafio.mapper;
+
+import com.bci.desafio.domain.Phone;
+import com.bci.desafio.domain.User;
+import com.bci.desafio.dto.LoginResponseDTO;
+import com.bci.desafio.dto.PhoneDTO;
+import com.bci.desafio.dto.UserDTO;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated mappers behind {@link UserMapper} with the reflective ModelMapper calls they
+ * replaced. Run with {@code -prof gc} to compare the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private EntityMapper entityMapper;
+    private UserMapper userMapper;
+    private ModelMapper modelMapper;
+    private UserDTO userDTO;
+    private PhoneDTO phoneDTO;
+    private User user;
+    private List<Phone> phones;
+
+    @Setup
+    public void setUp() {
+        entityMapper = Mappers.getMapper(EntityMapper.class);
+        userMapper = new UserMapper(entityMapper);
+        modelMapper = new ModelMapper();
+
+        phoneDTO = new PhoneDTO();
+        phoneDTO.setNumber(345790145L);
+        phoneDTO.setCityCode(261);
+        phoneDTO.setCountryCode("+54");
+
+        userDTO = new UserDTO();
+        userDTO.setName("Charlie");
+        userDTO.setEmail("charlie_01@correo.com");
+        userDTO.setPassword("Jajaja57b");
+        userDTO.setPhones(Arrays.asList(phoneDTO, phoneDTO));
+
+        user = userMapper.toUser(userDTO, "$2a$10$hash");
+        user.setId(UUID.randomUUID());
+        user.setCreateAt(LocalDateTime.now());
+        user.setLastLogin(LocalDateTime.now());
+        phones = Arrays.asList(entityMapper.toPhone(phoneDTO), entityMapper.toPhone(phoneDTO));
+    }
+
+    @Benchmark
+    public User toUser() {
+        return userMapper.toUser(userDTO, "$2a$10$hash");
+    }
+
+    @Benchmark
+    public Phone toPhone() {
+        return entityMapper.toPhone(phoneDTO);
+    }
+
+    @Benchmark
+    public LoginResponseDTO createLoginResponse() {
+        return userMapper.createLoginResponse(user, phones, "token");
+    }
+
+    @Benchmark
+    public User toUserModelMapper() {
+        User mapped = modelMapper.map(userDTO, User.class);
+        mapped.setPassword("$2a$10$hash");
+        return mapped;
+    }
+
+    @Benchmark
+    public Phone toPhoneModelMapper() {
+        return modelMapper.map(phoneDTO, Phone.class);
+    }
+
+    @Benchmark
+    public PhoneDTO toPhoneDTOModelMapper() {
+        return modelMapper.map(phones.get(0), PhoneDTO.class);
+    }
+
+    @Benchmark
+    public PhoneDTO toPhoneDTO() {
+        return entityMapper.toPhoneDTO(phones.get(0));
+    }
+}
@@ -0,0 +1,154 @@
+package com.bci.desafio.repository;
+
+import com.bci.desafio.domain.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former {@code phones} entity table with the {@code user_phones} value collection, which is read
+ * with the user in one join. Both schemas are loaded with the same
+ * users and store one row per phone; the entity layout needs a UUID per phone on sign-up and a second query on
+ * login, and its phones table carries the extra id column and primary key index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhoneStorageBenchmark {
+
+    private static final int PHONES_PER_USER = 2;
+
+    @Param({"entity", "embedded"})
+    private String layout;
+
+    @Param({"100000"})
+    private int users;
+
+    private Connection connection;
+    private PreparedStatement insertUser;
+    private PreparedStatement insertPhone;
+    private PreparedStatement findUser;
+    private PreparedStatement findPhones;
+    private boolean embedded;
+
+    @Setup
+    public void setUp() throws SQLException {
+        embedded = "embedded".equals(layout);
+        connection = DriverManager.getConnection("jdbc:h2:mem:phones_" + layout, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table users (id uuid not null primary key, name varchar(255), "
+                    + "email varchar(255), password varchar(255), create_at timestamp, last_login timestamp, "
+                    + "is_active boolean not null, role varchar(255), token_epoch integer default 0 not null)");
+            statement.execute("create unique index ux_users_email on users (email)");
+            if (embedded) {
+                statement.execute("create table user_phones (user_id uuid not null, phone_index integer not null, "
+                        + "number bigint, city_code integer, country_code varchar(255), "
+                        + "primary key (user_id, phone_index))");
+            } else {
+                statement.execute("create table phones (id uuid not null primary key, number bigint, "
+                        + "city_code integer, country_code varchar(255), user_id uuid)");
+                statement.execute("create index ix_phones_user_id on phones (user_id)");
+            }
+        }
+        insertUser = connection.prepareStatement("insert into users (id, name, email, password, create_at, "
+                + "last_login, is_active, role, token_epoch) values (?, 'Charlie', ?, '$2a$10$hash', ?, ?, true, 'USER', 0)");
+        insertPhone = embedded
+                ? connection.prepareStatement("insert into user_phones (user_id, phone_index, number, city_code, "
+                        + "country_code) values (?, ?, 345790145, 261, '+54')")
+                : connection.prepareStatement("insert into phones (id, user_id, number, city_code, country_code) "
+                        + "values (?, ?, 345790145, 261, '+54')");
+        findUser = embedded
+                ? connection.prepareStatement("select u.*, p.* from users u left join user_phones p "
+                        + "on p.user_id = u.id where u.email = ? order by p.phone_index")
+                : connection.prepareStatement("select * from users where email = ?");
+        findPhones = embedded ? null : connection.prepareStatement("select * from phones where user_id = ?");
+
+        connection.setAutoCommit(false);
+        for (int i = 0; i < users; i++) {
+            insert("user" + i + "@correo.com");
+            if (i % 1000 == 999) {
+                connection.commit();
+            }
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void login(Blackhole blackhole) throws SQLException {
+        findUser.setString(1, "user" + ThreadLocalRandom.current().nextInt(users) + "@correo.com");
+        UUID userId = null;
+        try (ResultSet rows = findUser.executeQuery()) {
+            while (rows.next()) {
+                userId = rows.getObject("id", UUID.class);
+                blackhole.consume(rows.getLong("number"));
+            }
+        }
+        if (!embedded) {
+            findPhones.setObject(1, userId);
+            try (ResultSet rows = findPhones.executeQuery()) {
+                while (rows.next()) {
+                    blackhole.consume(rows.getLong("number"));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void signUp() throws SQLException {
+        insert("new" + UUID.randomUUID() + "@correo.com");
+        connection.rollback();
+    }
+
+    private void insert(String email) throws SQLException {
+        UUID userId = TimeOrderedUuidGenerator.next();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        insertUser.setObject(1, userId);
+        insertUser.setString(2, email);
+        insertUser.setTimestamp(3, now);
+        insertUser.setTimestamp(4, now);
+        insertUser.executeUpdate();
+        for (int i = 0; i < PHONES_PER_USER; i++) {
+            if (embedded) {
+                insertPhone.setObject(1, userId);
+                insertPhone.setInt(2, i);
+            } else {
+                insertPhone.setObject(1, TimeOrderedUuidGenerator.next());
+                insertPhone.setObject(2, userId);
+            }
+            insertPhone.addBatch();
+        }
+        insertPhone.executeBatch();
+    }
+}
@@ -0,0 +1,81 @@
+package com.bci.desafio.security.filter;
+
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.security.service.TokenEpochs;
+import com.bci.desafio.security.service.UserDetailsCache;
+import com.bci.desafio.security.service.UserDetailsServiceImpl;
+import com.bci.desafio.security.utils.JWTUtils;
+import com.bci.desafio.security.utils.JwtCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import javax.servlet.FilterChain;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the filter against mock servlet objects. The user lookup is served from memory, so the
+ * numbers show the filter's own cost and not the database round trip.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+    @Param({"DATABASE", "CACHED", "CLAIMS"})
+    private AuthenticationMode mode;
+
+    private JwtRequestFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        UserDetails userDetails = User.withUsername("charlie_01@correo.com").password("x").roles("USER").build();
+        UserDetailsService userDetailsService = username -> userDetails;
+        JWTUtils jwtUtils = new JWTUtils(new JwtCodec("SECRETO1234"), 1800000, 10000, new SimpleMeterRegistry());
+        UserDetailsCache userDetailsCache = new UserDetailsCache(new UserDetailsServiceImpl(null) {
+            @Override
+            public UserDetails loadUserByUsername(String email) {
+                return userDetails;
+            }
+        }, 10000, Duration.ofMinutes(1));
+        filter = new JwtRequestFilter(userDetailsService, userDetailsCache, jwtUtils, new TokenEpochs(null, new UserShards(1)), mode,
+                new SimpleMeterRegistry());
+
+        request = new MockHttpServletRequest("GET", "/users/login");
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateToken(userDetails));
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        try {
+            filter.doFilterInternal(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.bci.desafio.security.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the jjwt path used before, with the raw secret and the whole authority in the rol claim,
+ * against {@link JwtCodec}. Run with {@code -prof gc} to see the allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtCodecBenchmark {
+
+    private static final String SECRET = "SECRETO1234";
+    private static final String SUBJECT = "charlie_01@correo.com";
+
+    private JwtCodec codec;
+    private String jjwtToken;
+    private String codecToken;
+
+    @Setup
+    public void setUp() {
+        codec = new JwtCodec(SECRET);
+        jjwtToken = jjwtEncode();
+        codecToken = codecEncode();
+    }
+
+    @Benchmark
+    public String jjwtEncode() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(VerifiedClaims.ROLE_CLAIM, new SimpleGrantedAuthority("ROLE_USER"));
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(SUBJECT)
+                .setIssuedAt(Date.from(Instant.now()))
+                .setExpiration(Date.from(Instant.now().plusMillis(1800000)))
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims jjwtDecode() {
+        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(jjwtToken).getBody();
+    }
+
+    @Benchmark
+    public String codecEncode() {
+        long now = System.currentTimeMillis();
+        return codec.encode(SUBJECT, "ROLE_USER", now / 1000, (now + 1800000) / 1000);
+    }
+
+    @Benchmark
+    public VerifiedClaims codecDecode() {
+        return codec.decode(codecToken);
+    }
+
+    @Benchmark
+    public VerifiedClaims codecDecodeLegacyToken() {
+        return codec.decode(jjwtToken);
+    }
+}
@@ -0,0 +1,41 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.validation.PasswordPolicy;
+import com.bci.desafio.validation.PasswordPolicyProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckPasswordBenchmark {
+
+    @Param({"Jajaja57b", "nocapitallet"})
+    private String password;
+
+    private PasswordPolicy passwordPolicy;
+
+    @Setup
+    public void setUp() {
+        passwordPolicy = new PasswordPolicy(new PasswordPolicyProperties());
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return passwordPolicy.validate(password).isEmpty();
+    }
+}
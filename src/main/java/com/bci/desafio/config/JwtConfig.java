@@ -0,0 +1,43 @@
+package com.bci.desafio.config;
+
+import com.bci.desafio.security.utils.EcKeyRing;
+import com.bci.desafio.security.utils.HmacKeys;
+import com.bci.desafio.security.utils.JwtCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+@Configuration
+@Slf4j
+public class JwtConfig {
+
+    @Bean
+    public JwtCodec jwtCodec(@Value("${security.jwt.secret}") String secret, ObjectProvider<EcKeyRing> ecKeyRing) {
+        HmacKeys hmacKeys = new HmacKeys(secret);
+        EcKeyRing ring = ecKeyRing.getIfAvailable();
+        return ring != null ? new JwtCodec(ring, hmacKeys) : new JwtCodec(hmacKeys);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.jwt.signing-algorithm", havingValue = "ES256")
+    public EcKeyRing ecKeyRing(ResourceLoader resourceLoader,
+                               @Value("${security.jwt.key-store:}") String keyStore,
+                               @Value("${security.jwt.key-store-password:}") String keyStorePassword,
+                               @Value("${security.jwt.active-key-id:}") String activeKeyId)
+            throws IOException, GeneralSecurityException {
+        if (keyStore.isEmpty()) {
+            log.warn("No security.jwt.key-store configured, signing tokens with a generated ES256 key that is lost on restart");
+            return EcKeyRing.generate();
+        }
+        EcKeyRing ring = EcKeyRing.load(resourceLoader.getResource(keyStore), keyStorePassword.toCharArray(), activeKeyId);
+        log.info("Signing tokens with ES256 key {}", ring.activeKeyId());
+        return ring;
+    }
+}
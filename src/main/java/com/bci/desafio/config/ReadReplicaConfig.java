@@ -0,0 +1,39 @@
+package com.bci.desafio.config;
+
+import com.bci.desafio.datasource.ReadWriteRoutingDataSource;
+import com.bci.desafio.datasource.ReplicaSelection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single {@code spring.datasource} pool with a primary and a set of read replicas that share its
+ * driver and credentials. Read-only transactions go to the replicas, everything else to the primary. With more than
+ * one shard {@link ShardingConfig} provides the data source instead, and refuses to start if replicas are enabled.
+ */
+@Configuration
+@ConditionalOnExpression("${users.datasource.replicas.enabled:false} && ${users.datasource.shards.count:1} <= 1")
+@Slf4j
+public class ReadReplicaConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${users.datasource.replicas.urls}") List<String> replicaUrls,
+                                 @Value("${users.datasource.replicas.selection:ROUND_ROBIN}") ReplicaSelection selection) {
+        DataSource primary = properties.initializeDataSourceBuilder().build();
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (String url : replicaUrls) {
+            replicas.add(properties.initializeDataSourceBuilder().url(url.trim()).build());
+        }
+        log.info("Routing read-only transactions to {} replicas ({})", replicas.size(), selection);
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas, selection));
+    }
+}
@@ -0,0 +1,108 @@
+package com.bci.desafio.config;
+
+import com.bci.desafio.datasource.ShardRebalancer;
+import com.bci.desafio.datasource.ShardRoutingDataSource;
+import com.bci.desafio.datasource.ShardRoutingInterceptor;
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.domain.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single {@code spring.datasource} pool with one pool per shard, sharing its driver and credentials.
+ * Every user lives in the shard of its email, so the unique email index of each shard is enough to keep emails
+ * unique. Calls to the user repository are routed by the email they receive; the callers route the rest.
+ */
+@Configuration
+@ConditionalOnExpression("${users.datasource.shards.count:1} > 1")
+@Slf4j
+public class ShardingConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, UserShards userShards,
+                                 @Value("${users.datasource.shards.urls}") List<String> shardUrls,
+                                 @Value("${users.datasource.replicas.enabled:false}") boolean replicasEnabled) {
+        if (replicasEnabled) {
+            throw new IllegalStateException("users.datasource.replicas.enabled cannot be used with "
+                    + userShards.count() + " shards, read replicas are only supported with a single database");
+        }
+        List<DataSource> shards = pools(properties, shardUrls);
+        if (shards.size() != userShards.count()) {
+            throw new IllegalStateException("users.datasource.shards.urls has " + shards.size()
+                    + " urls for " + userShards.count() + " shards");
+        }
+        log.info("Storing users in {} shards", shards.size());
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+    }
+
+    /**
+     * Adds the {@link ShardRoutingInterceptor} in front of the transaction of the user repository, so the commit
+     * that flushes a save runs on the shard of the user too.
+     */
+    @Bean
+    public static BeanPostProcessor shardRoutingPostProcessor(@Value("${users.datasource.shards.count}") int count) {
+        ShardRoutingInterceptor interceptor = new ShardRoutingInterceptor(new UserShards(count));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                                if (User.class.equals(repositoryInformation.getDomainType())) {
+                                    proxyFactory.addAdvice(0, interceptor);
+                                }
+                            }));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FlywayMigrationStrategy shardMigrations(UserShards userShards) {
+        return flyway -> userShards.onEachShard(flyway::migrate);
+    }
+
+    /**
+     * Starts the application only to run the {@link ShardRebalancer} and exits when it is done.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "users.datasource.shards.rebalance", havingValue = "true")
+    public ApplicationRunner shardRebalancing(ConfigurableApplicationContext context, DataSource dataSource,
+                                              DataSourceProperties properties,
+                                              @Value("${users.datasource.shards.retired-urls:}") List<String> retiredUrls,
+                                              @Value("${users.datasource.shards.rebalance-page-size:1000}") int pageSize) {
+        return args -> {
+            List<DataSource> shards = dataSource.unwrap(ShardRoutingDataSource.class).getShards();
+            long moved = new ShardRebalancer(shards, pageSize).rebalance(pools(properties, retiredUrls));
+            log.info("Rebalancing done, {} users moved", moved);
+            System.exit(SpringApplication.exit(context, () -> 0));
+        };
+    }
+
+    private static List<DataSource> pools(DataSourceProperties properties, List<String> urls) {
+        List<DataSource> pools = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            if (!url.trim().isEmpty()) {
+                pools.add(properties.initializeDataSourceBuilder().url(url.trim()).build());
+            }
+        }
+        return pools;
+    }
+}
@@ -1,6 +1,9 @@
 package com.bci.desafio.config;
 
 import com.bci.desafio.security.filter.JwtRequestFilter;
+import com.bci.desafio.security.service.CachingAuthenticationProvider;
+import com.bci.desafio.security.utils.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,11 +24,13 @@ public class WebSecurityConfig {
     private final JwtRequestFilter jwtRequestFilter;
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.httpBasic(Customizer.withDefaults())
+    public SecurityFilterChain filterChain(HttpSecurity http, CachingAuthenticationProvider basicAuthProvider) throws Exception {
+        http.authenticationProvider(basicAuthProvider)
+                .httpBasic(Customizer.withDefaults())
                 .authorizeRequests()
                 //.antMatchers("/users/sing-up").permitAll()
                 .antMatchers("/users/sing-up").permitAll()
+                .antMatchers("/.well-known/jwks.json").permitAll()
                 .anyRequest().authenticated()
                 .and().sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
@@ -36,8 +41,8 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder encoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder encoder(MeterRegistry meterRegistry){
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
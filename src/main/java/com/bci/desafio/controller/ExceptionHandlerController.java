@@ -2,34 +2,59 @@ package com.bci.desafio.controller;
 
 import com.bci.desafio.dto.Error;
 import com.bci.desafio.exceptions.ConstraintsException;
+import com.bci.desafio.exceptions.PasswordHashingRejectedException;
+import com.bci.desafio.exceptions.SignUpRejectedException;
 import com.bci.desafio.exceptions.UserAlreadyExistException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.servlet.HandlerMapping;
 
+import javax.servlet.http.HttpServletRequest;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @ControllerAdvice
 public class ExceptionHandlerController {
 
+    private final MeterRegistry meterRegistry;
+    /**
+     * The users.requests.failed counter of each handler pattern and exception, registered once.
+     */
+    private final Map<String, Map<Class<?>, Counter>> failureCounters = new ConcurrentHashMap<>();
+
+    public ExceptionHandlerController(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(ConstraintsException.class)
-    public ResponseEntity<Error> handleConstraintsException(ConstraintsException ex) {
-        Error error = Error.builder()
-                .timestamp(new Timestamp(new Date().getTime()))
-                .detail(ex.getMessage())
-                .code(HttpStatus.BAD_REQUEST.value())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<List<Error>> handleConstraintsException(ConstraintsException ex, HttpServletRequest request) {
+        countFailure(request, ex);
+        List<Error> errors = new ArrayList<>();
+        ex.getErrors().forEach(e -> {
+            Error error = Error.builder()
+                            .timestamp(new Timestamp(new Date().getTime()))
+                            .detail(e)
+                            .code(HttpStatus.BAD_REQUEST.value())
+                            .build();
+            errors.add(error);
+        });
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<List<Error>> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+    public ResponseEntity<List<Error>> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex, HttpServletRequest request) {
+        countFailure(request, ex);
         List<Error> errors = new ArrayList<>();
         ex.getBindingResult().getFieldErrors().forEach(e -> {
             Error error = Error.builder()
@@ -43,14 +68,34 @@ public class ExceptionHandlerController {
     }
 
     @ExceptionHandler(UserAlreadyExistException.class)
-    public ResponseEntity<Error> handleUserAlreadyExistException(UserAlreadyExistException ex) {
+    public ResponseEntity<Error> handleUserAlreadyExistException(UserAlreadyExistException ex, HttpServletRequest request) {
+        countFailure(request, ex);
         Error error = new Error(new Timestamp(new Date().getTime()),HttpStatus.BAD_REQUEST.value() , ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
     @ExceptionHandler(UsernameNotFoundException.class)
-    public ResponseEntity<Error> handleUsernameNotFoundException(UsernameNotFoundException ex) {
+    public ResponseEntity<Error> handleUsernameNotFoundException(UsernameNotFoundException ex, HttpServletRequest request) {
+        countFailure(request, ex);
         Error error = new Error(new Timestamp(new Date().getTime()), HttpStatus.BAD_REQUEST.value(), ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
+
+    @ExceptionHandler({PasswordHashingRejectedException.class, SignUpRejectedException.class})
+    public ResponseEntity<Error> handleRejectedSignUp(RuntimeException ex, HttpServletRequest request) {
+        countFailure(request, ex);
+        Error error = new Error(new Timestamp(new Date().getTime()), HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
+    private void countFailure(HttpServletRequest request, Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        failureCounters.computeIfAbsent(uri, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(ex.getClass(), type -> Counter.builder("users.requests.failed")
+                        .tag("uri", uri)
+                        .tag("exception", type.getSimpleName())
+                        .register(meterRegistry))
+                .increment();
+    }
 }
@@ -0,0 +1,48 @@
+package com.bci.desafio.controller;
+
+import com.bci.desafio.security.utils.EcKeyRing;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Publishes the public ES256 keys so other services can verify tokens locally. The document only changes
+ * on restart, so it is built once and served with an ETag and a public max-age.
+ */
+@RestController
+public class JwksController {
+
+    private static final String EMPTY_JWKS = "{\"keys\":[]}";
+
+    private final String jwks;
+    private final String eTag;
+    private final CacheControl cacheControl;
+
+    public JwksController(ObjectProvider<EcKeyRing> ecKeyRing,
+                          @Value("${security.jwt.jwks.max-age:1h}") Duration maxAge) {
+        EcKeyRing ring = ecKeyRing.getIfAvailable();
+        this.jwks = ring != null ? ring.getJwks() : EMPTY_JWKS;
+        this.eTag = "\"" + DigestUtils.md5DigestAsHex(jwks.getBytes(StandardCharsets.UTF_8)) + "\"";
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(eTag)
+                .body(jwks);
+    }
+}
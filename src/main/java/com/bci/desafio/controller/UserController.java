@@ -3,6 +3,7 @@ package com.bci.desafio.controller;
 import com.bci.desafio.dto.LoginResponseDTO;
 import com.bci.desafio.dto.UserDTO;
 import com.bci.desafio.dto.UserResponseDTO;
+import com.bci.desafio.service.BatchSignUpService;
 import com.bci.desafio.service.UserService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,7 +13,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping(value = "/users")
@@ -21,11 +25,32 @@ import javax.validation.Valid;
 public class UserController {
 
     private final UserService userService;
+    private final BatchSignUpService batchSignUpService;
 
     @PostMapping(value = "/sing-up", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<UserResponseDTO> userRegister(@Valid @RequestBody UserDTO userDTO) {
+    public CompletableFuture<ResponseEntity<UserResponseDTO>> userRegister(@RequestBody UserDTO userDTO) {
         log.info("User to save: {}", userDTO);
-        return new ResponseEntity<>(userService.userRegister(userDTO), HttpStatus.CREATED);
+        return userService.userRegister(userDTO)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.CREATED));
+    }
+
+    @PostMapping(value = "/batch-sign-up", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void batchSignUp(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        batchSignUpService.register(request.getInputStream(), response.getOutputStream());
+    }
+
+    @PostMapping(value = "/logout-all")
+    public ResponseEntity<Void> logoutAll(Principal principal) {
+        userService.logoutAll(principal.getName());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(value = "/deactivate")
+    public ResponseEntity<Void> deactivate(Principal principal) {
+        userService.deactivate(principal.getName());
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping(value = "/login")
@@ -0,0 +1,97 @@
+package com.bci.desafio.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to one of the replicas and everything else to the primary.
+ * The decision is taken when the connection is requested, so it must be wrapped in a
+ * {@code LazyConnectionDataSourceProxy}: the transaction manager asks for the connection before the
+ * transaction is marked read-only, and the proxy delays it until the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final List<DataSource> replicas;
+    private final ReplicaSelection selection;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaSelection selection) {
+        this.replicas = new ArrayList<>(replicas);
+        this.selection = selection;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs {@code work} with every connection it opens on the primary, read-only or not. Used to read data the
+     * replicas may not have received yet.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PINNED_TO_PRIMARY.get() != null) {
+            return work.get();
+        }
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PINNED_TO_PRIMARY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty()
+                || PINNED_TO_PRIMARY.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return selection == ReplicaSelection.LEAST_CONNECTIONS ? leastBusyReplica() : nextRoundRobinReplica();
+    }
+
+    private int nextRoundRobinReplica() {
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    private int leastBusyReplica() {
+        int start = nextRoundRobinReplica();
+        int best = start;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            int active = activeConnections(replicas.get(candidate));
+            if (active < fewest) {
+                best = candidate;
+                fewest = active;
+            }
+        }
+        return best;
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.bci.desafio.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the users written by this instance during the last {@code users.datasource.read-your-writes.window},
+ * so their reads go to the primary until the replicas have caught up. A window of zero turns it off.
+ */
+@Component
+public class RecentWrites {
+
+    private final Cache<String, Boolean> writes;
+
+    public RecentWrites(@Value("${users.datasource.read-your-writes.window:5s}") Duration window) {
+        this.writes = window.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void record(String email) {
+        if (writes != null) {
+            writes.put(normalize(email), Boolean.TRUE);
+        }
+    }
+
+    public boolean isRecent(String email) {
+        return writes != null && email != null && writes.getIfPresent(normalize(email)) != null;
+    }
+
+    /**
+     * Runs the read on the primary when the user was written recently, on whatever the transaction picks otherwise.
+     */
+    public <T> T read(String email, Supplier<T> read) {
+        return isRecent(email) ? ReadWriteRoutingDataSource.onPrimary(read) : read.get();
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bci.desafio.datasource;
+
+/**
+ * How {@link ReadWriteRoutingDataSource} picks the replica of a read-only transaction.
+ */
+public enum ReplicaSelection {
+    ROUND_ROBIN,
+    /**
+     * The replica with the fewest connections in use, as reported by its Hikari pool.
+     */
+    LEAST_CONNECTIONS
+}
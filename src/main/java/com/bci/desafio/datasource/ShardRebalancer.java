@@ -0,0 +1,119 @@
+package com.bci.desafio.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Moves every user, with its phones, to the shard its email belongs to in the current list of shards. It is
+ * used after adding shards at the end of {@code users.datasource.shards.urls}, and to empty the shards that are
+ * being retired. Users are read by id in pages; each page is first written to its new shards, replacing any copy
+ * left by an interrupted run, and then deleted from the old one, so running it again is always safe. Sign-ups and
+ * token revocations of the users being moved must be stopped while it runs.
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private final List<DataSource> shards;
+    private final int pageSize;
+
+    public ShardRebalancer(List<DataSource> shards, int pageSize) {
+        this.shards = new ArrayList<>(shards);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Rebalances every shard and empties the retired ones.
+     *
+     * @return the number of users moved
+     */
+    public long rebalance(List<DataSource> retired) {
+        long moved = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            moved += moveMisplacedUsers(shards.get(shard), shard);
+        }
+        for (DataSource source : retired) {
+            moved += moveMisplacedUsers(source, -1);
+        }
+        return moved;
+    }
+
+    /**
+     * @param shard the index of {@code source} in the list of shards, -1 when it is retired and every user must go
+     */
+    long moveMisplacedUsers(DataSource source, int shard) {
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(source);
+        long moved = 0;
+        UUID after = null;
+        List<Map<String, Object>> page;
+        do {
+            page = jdbc.queryForList("select id, email from users" + (after == null ? "" : " where id > :after")
+                    + " order by id fetch first " + pageSize + " rows only", new MapSqlParameterSource("after", after));
+            Map<Integer, List<UUID>> misplaced = new HashMap<>();
+            for (Map<String, Object> user : page) {
+                int target = UserShards.shardOf((String) user.get("email"), shards.size());
+                if (target != shard) {
+                    misplaced.computeIfAbsent(target, t -> new ArrayList<>()).add((UUID) user.get("id"));
+                }
+            }
+            for (Map.Entry<Integer, List<UUID>> users : misplaced.entrySet()) {
+                move(source, shards.get(users.getKey()), users.getValue());
+                moved += users.getValue().size();
+            }
+            if (!page.isEmpty()) {
+                after = (UUID) page.get(page.size() - 1).get("id");
+            }
+        } while (page.size() == pageSize);
+        log.info("Moved {} users out of shard {}", moved, shard);
+        return moved;
+    }
+
+    private void move(DataSource source, DataSource target, List<UUID> ids) {
+        NamedParameterJdbcTemplate from = new NamedParameterJdbcTemplate(source);
+        NamedParameterJdbcTemplate to = new NamedParameterJdbcTemplate(target);
+        SqlParameterSource byIds = new MapSqlParameterSource("ids", ids);
+        List<Map<String, Object>> users = from.queryForList("select * from users where id in (:ids)", byIds);
+        List<Map<String, Object>> phones = from.queryForList("select * from user_phones where user_id in (:ids)", byIds);
+
+        inTransaction(target, () -> {
+            delete(to, byIds);
+            insert(to, "users", users);
+            insert(to, "user_phones", phones);
+        });
+        inTransaction(source, () -> delete(from, byIds));
+    }
+
+    private static void delete(NamedParameterJdbcTemplate jdbc, SqlParameterSource byIds) {
+        jdbc.update("delete from user_phones where user_id in (:ids)", byIds);
+        jdbc.update("delete from users where id in (:ids)", byIds);
+    }
+
+    /**
+     * Inserts the rows as they were read, so columns added by later migrations are copied too.
+     */
+    @SuppressWarnings("unchecked")
+    private static void insert(NamedParameterJdbcTemplate jdbc, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values ("
+                + columns.stream().map(column -> ":" + column).collect(Collectors.joining(", ")) + ")";
+        jdbc.batchUpdate(sql, rows.toArray(new Map[0]));
+    }
+
+    private static void inTransaction(DataSource dataSource, Runnable work) {
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> work.run());
+    }
+}
@@ -0,0 +1,82 @@
+package com.bci.desafio.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends each connection to the shard the current thread is working on, set with {@link #onShard}. Connections
+ * opened outside a shard, such as the ones Hibernate uses at startup, go to shard 0. As with
+ * {@link ReadWriteRoutingDataSource} it must be wrapped in a {@code LazyConnectionDataSourceProxy}, so the shard
+ * is chosen on the first statement and not when the transaction begins. A transaction stays on the shard of its
+ * first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < this.shards.size(); i++) {
+            targets.put(i, this.shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(this.shards.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public List<DataSource> getShards() {
+        return shards;
+    }
+
+    /**
+     * Runs {@code work} with every connection it opens on {@code shard}.
+     *
+     * @throws IllegalStateException if the thread is in a transaction that already works on another shard
+     */
+    public static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = enter(shard);
+        try {
+            return work.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    static Integer enter(int shard) {
+        Integer current = CURRENT_SHARD.get();
+        if (current != null && current != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("The transaction works on shard " + current + ", it cannot use shard " + shard);
+        }
+        CURRENT_SHARD.set(shard);
+        return current;
+    }
+
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    static void exit(Integer previous) {
+        if (previous == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT_SHARD.get();
+    }
+}
@@ -0,0 +1,48 @@
+package com.bci.desafio.datasource;
+
+import com.bci.desafio.domain.User;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Runs each call to the user repository on the shard of the user it is about: the email of a {@link User}
+ * argument, or the first argument when it is a String, since every such method of {@code UserRepository} takes
+ * the email. Other calls, such as {@code findById} or {@code findAll}, must run inside a shard the caller chose
+ * with {@link UserShards}; outside one they fail instead of silently reading shard 0.
+ */
+public class ShardRoutingInterceptor implements MethodInterceptor {
+
+    private final UserShards userShards;
+
+    public ShardRoutingInterceptor(UserShards userShards) {
+        this.userShards = userShards;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String email = email(invocation.getArguments());
+        if (email == null) {
+            if (ShardRoutingDataSource.currentShard() == null && invocation.getMethod().getDeclaringClass() != Object.class) {
+                throw new IllegalStateException(invocation.getMethod().getName() + " is not about the user of an email, "
+                        + "it must run on a shard chosen with UserShards.onShard or onEachShard");
+            }
+            return invocation.proceed();
+        }
+        Integer previous = ShardRoutingDataSource.enter(userShards.shardOf(email));
+        try {
+            return invocation.proceed();
+        } finally {
+            ShardRoutingDataSource.exit(previous);
+        }
+    }
+
+    private static String email(Object[] arguments) {
+        if (arguments.length == 0) {
+            return null;
+        }
+        if (arguments[0] instanceof User) {
+            return ((User) arguments[0]).getEmail();
+        }
+        return arguments[0] instanceof String ? (String) arguments[0] : null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bci.desafio.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Maps every user to one of the {@code users.datasource.shards.count} shards by a stable hash of its lowercased
+ * email. The hash is a jump consistent hash, so adding a shard at the end only moves users to the new shard, about
+ * one in {@code count} of them. With a single shard every method just runs the work.
+ */
+@Component
+public class UserShards {
+
+    private final int count;
+
+    public UserShards(@Value("${users.datasource.shards.count:1}") int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("There must be at least one shard, got " + count);
+        }
+        this.count = count;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(String email) {
+        return shardOf(email, count);
+    }
+
+    public static int shardOf(String email, int count) {
+        long key = hash(email);
+        long bucket = -1;
+        long next = 0;
+        while (next < count) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    public <T> T onShardOf(String email, Supplier<T> work) {
+        return onShard(shardOf(email), work);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        return ShardRoutingDataSource.onShard(shard, work);
+    }
+
+    public void runOnShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code work} once on every shard, one after the other, for the queries that are not about one user.
+     */
+    public <T> List<T> onEachShard(Supplier<T> work) {
+        List<T> results = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            results.add(onShard(shard, work));
+        }
+        return results;
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes followed by the MurmurHash3 finalizer, which spreads emails that only
+     * differ in their last characters over the whole range.
+     */
+    static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
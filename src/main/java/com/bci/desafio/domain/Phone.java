@@ -1,33 +1,19 @@
 package com.bci.desafio.domain;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import lombok.Builder;
 import lombok.Data;
-import org.hibernate.annotations.GenericGenerator;
 
-import javax.persistence.*;
-import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
 
 @Data
-@Entity
-@Table(name = "phones")
+@Embeddable
 public class Phone {
 
-    @JsonIgnore
-    @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
-    @Column(name = "id", updatable = false, nullable = false, columnDefinition = "uuid")
-    private UUID id;
-
     private Long number;
 
     @Column(name = "city_code")
     private Integer cityCode;
 
+    @Column(name = "country_code")
     private String countryCode;
-
-    @ManyToOne
-    @JoinColumn(name = "user_id")
-    private User user;
 }
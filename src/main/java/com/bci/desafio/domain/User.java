@@ -3,25 +3,37 @@ package com.bci.desafio.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Data
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "user-emails")
 public class User {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GenericGenerator(name = "UUID", strategy = "com.bci.desafio.domain.TimeOrderedUuidGenerator")
     @Column(name = "id", updatable = false, nullable = false, columnDefinition = "uuid")
     private UUID id;
 
     private String name;
 
+    @NaturalId
     @Column(name = "email", unique = true)
     private String email;
 
@@ -39,6 +51,23 @@ public class User {
     @JsonIgnore
     private String role;
 
+    @JsonIgnore
+    @Column(name = "token_epoch", nullable = false)
+    private int tokenEpoch;
+
+    /**
+     * Stored in {@code user_phones} keyed by the user and the position of the phone, so the phones are
+     * written with the user in one batched insert and read with it in the same query.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-phones")
+    @CollectionTable(name = "user_phones", joinColumns = @JoinColumn(name = "user_id"))
+    @OrderColumn(name = "phone_index")
+    private List<Phone> phones = new ArrayList<>();
+
     @PrePersist
     protected void init(){
         this.isActive = true;
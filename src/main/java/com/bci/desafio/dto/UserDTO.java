@@ -1,5 +1,7 @@
 package com.bci.desafio.dto;
 
+import com.bci.desafio.validation.PasswordChecks;
+import com.bci.desafio.validation.ValidPassword;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,7 +9,6 @@ import lombok.Setter;
 import javax.validation.Valid;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Size;
 import java.util.List;
 
 @Data
@@ -20,7 +21,7 @@ public class UserDTO {
     private String email;
 
     @NotNull(message = "The password cannot be empty")
-    @Size(min = 8, max = 12, message = "The password must be between 8 and 12 characters")
+    @ValidPassword(groups = PasswordChecks.class)
     private String password;
 
     private List<@Valid PhoneDTO> phones;
@@ -1,15 +1,28 @@
 package com.bci.desafio.exceptions;
 
+import java.util.Collections;
+import java.util.List;
+
 public class ConstraintsException extends RuntimeException{
     private int code;
+    private final List<String> errors;
     public ConstraintsException(int code, String message) {
         super(message);
         this.code = code;
+        this.errors = Collections.singletonList(message);
     }
     public ConstraintsException(String message) {
         super(message);
+        this.errors = Collections.singletonList(message);
+    }
+    public ConstraintsException(List<String> errors) {
+        super(String.join(", ", errors));
+        this.errors = errors;
     }
     public int getCode() {
         return code;
     }
-}
\ No newline at end of file
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,7 @@
+package com.bci.desafio.exceptions;
+
+public class PasswordHashingRejectedException extends RuntimeException{
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.bci.desafio.exceptions;
+
+/**
+ * A sign-up turned away because the users already hashed cannot be stored fast enough.
+ */
+public class SignUpRejectedException extends RuntimeException{
+    public SignUpRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.bci.desafio.mapper;
+
+import com.bci.desafio.domain.Phone;
+import com.bci.desafio.domain.User;
+import com.bci.desafio.dto.PhoneDTO;
+import com.bci.desafio.dto.UserDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Field copies between DTOs and entities, generated at compile time. Use it through {@link UserMapper}.
+ * A target field that is neither mapped nor ignored below fails the build.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface EntityMapper {
+
+    /**
+     * The password is set hashed by {@link UserMapper}, like the role; the rest is set when the user is stored.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "createAt", ignore = true)
+    @Mapping(target = "lastLogin", ignore = true)
+    @Mapping(target = "active", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "tokenEpoch", ignore = true)
+    User toUser(UserDTO userDTO);
+
+    Phone toPhone(PhoneDTO phoneDTO);
+
+    PhoneDTO toPhoneDTO(Phone phone);
+}
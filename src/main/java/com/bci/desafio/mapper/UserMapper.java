@@ -6,46 +6,48 @@ import com.bci.desafio.domain.User;
 import com.bci.desafio.dto.LoginResponseDTO;
 import com.bci.desafio.dto.PhoneDTO;
 import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.monitoring.RequestTimings;
 import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 @AllArgsConstructor
 public class UserMapper {
 
-    private final PasswordEncoder passwordEncoder;
-    private final ModelMapper modelMapper;
+    private final EntityMapper entityMapper;
 
-    public User toUser(UserDTO userDTO) {
-        User user = modelMapper.map(userDTO, User.class);
+    public User toUser(UserDTO userDTO, String encodedPassword) {
+        User user = entityMapper.toUser(userDTO);
         user.setRole(Role.ROLE_USER.getValue());
-        user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+        user.setPassword(encodedPassword);
+        if (user.getPhones() == null) {
+            user.setPhones(new ArrayList<>());
+        }
         return user;
     }
 
-    public Phone toPhone(PhoneDTO phoneDTO, User user) {
-        Phone phone = modelMapper.map(phoneDTO, Phone.class);
-        phone.setUser(user);
-        return phone;
-    }
-
     public LoginResponseDTO createLoginResponse(User user, List<Phone> phones, String token) {
+        long start = RequestTimings.start();
+        List<PhoneDTO> phoneDTOs = new ArrayList<>(phones.size());
+        for (Phone phone : phones) {
+            phoneDTOs.add(entityMapper.toPhoneDTO(phone));
+        }
 
-        return LoginResponseDTO.builder()
+        LoginResponseDTO response = LoginResponseDTO.builder()
                 .id(user.getId())
                 .created(user.getCreateAt())
                 .lastLogin(user.getLastLogin())
                 .token(token)
-                .phones(phones.stream().map(p -> modelMapper.map(p, PhoneDTO.class)).collect(Collectors.toList()))
+                .phones(phoneDTOs)
                 .isActive(user.isActive())
                 .name(user.getName())
                 .email(user.getEmail())
                 .password(user.getPassword())
                 .build();
+        RequestTimings.stop("mapping", start);
+        return response;
     }
 }
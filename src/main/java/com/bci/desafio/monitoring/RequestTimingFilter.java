@@ -0,0 +1,75 @@
+package com.bci.desafio.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Starts the {@link RequestTimings} of each request and writes requests slower than the threshold, with
+ * their stage breakdown, to the {@code SLOW_REQUESTS} logger. The filter is skipped entirely when both the
+ * Server-Timing header and the slow request log are disabled.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger SLOW_REQUESTS = LoggerFactory.getLogger("SLOW_REQUESTS");
+    private static final String TIMINGS_ATTRIBUTE = RequestTimingFilter.class.getName() + ".TIMINGS";
+
+    private final boolean serverTimingHeader;
+    private final long slowRequestThresholdNanos;
+
+    public RequestTimingFilter(@Value("${monitoring.request-timing.server-timing-header:false}") boolean serverTimingHeader,
+                               @Value("${monitoring.request-timing.slow-request-threshold:0ms}") Duration slowRequestThreshold) {
+        this.serverTimingHeader = serverTimingHeader;
+        this.slowRequestThresholdNanos = slowRequestThreshold.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !serverTimingHeader && slowRequestThresholdNanos <= 0;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings timings = (RequestTimings) request.getAttribute(TIMINGS_ATTRIBUTE);
+        if (timings == null) {
+            timings = new RequestTimings();
+            request.setAttribute(TIMINGS_ATTRIBUTE, timings);
+        }
+        RequestTimings.bind(timings);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimings.unbind();
+            if (!isAsyncStarted(request)) {
+                timings.endSerialization();
+                logIfSlow(request, response, timings);
+            }
+        }
+    }
+
+    private void logIfSlow(HttpServletRequest request, HttpServletResponse response, RequestTimings timings) {
+        long elapsed = timings.elapsedNanos();
+        if (slowRequestThresholdNanos > 0 && elapsed >= slowRequestThresholdNanos) {
+            SLOW_REQUESTS.warn("{} {} {} took {} ms: {}", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    elapsed / 1_000_000, timings.describe());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bci.desafio.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Stage timings of the current request. The {@link RequestTimingFilter} binds one to the request thread
+ * only when timing is enabled, so when it is disabled every call here is a thread local lookup and nothing else.
+ * Work handed to another thread should capture {@link #current()} and record against it explicitly.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final List<String> names = new ArrayList<>(8);
+    private final List<Long> durations = new ArrayList<>(8);
+    private long serializationStart;
+
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    public static long start() {
+        return CURRENT.get() != null ? System.nanoTime() : 0L;
+    }
+
+    public static long start(RequestTimings timings) {
+        return timings != null ? System.nanoTime() : 0L;
+    }
+
+    public static void stop(String stage, long start) {
+        stop(CURRENT.get(), stage, start);
+    }
+
+    public static void stop(RequestTimings timings, String stage, long start) {
+        if (timings != null && start != 0L) {
+            timings.record(stage, System.nanoTime() - start);
+        }
+    }
+
+    static void bind(RequestTimings timings) {
+        CURRENT.set(timings);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    public synchronized void record(String stage, long nanos) {
+        names.add(stage);
+        durations.add(nanos);
+    }
+
+    synchronized void startSerialization() {
+        serializationStart = System.nanoTime();
+    }
+
+    synchronized void endSerialization() {
+        if (serializationStart != 0L) {
+            record("serialization", System.nanoTime() - serializationStart);
+            serializationStart = 0L;
+        }
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Formats the stages as a Server-Timing header value, e.g. {@code token;dur=0.41, user-lookup;dur=2.10, app;dur=3.02}.
+     */
+    synchronized String toServerTiming() {
+        StringBuilder header = new StringBuilder(32 * (names.size() + 1));
+        for (int i = 0; i < names.size(); i++) {
+            header.append(names.get(i)).append(";dur=").append(millis(durations.get(i))).append(", ");
+        }
+        return header.append("app;dur=").append(millis(elapsedNanos())).toString();
+    }
+
+    synchronized String describe() {
+        StringBuilder description = new StringBuilder(32 * names.size());
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                description.append(", ");
+            }
+            description.append(names.get(i)).append('=').append(millis(durations.get(i))).append("ms");
+        }
+        return description.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,31 @@
+package com.bci.desafio.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("com.bci.desafio.Jwt")
+@Label("JWT Operation")
+@Category({"BCI Desafio", "Security"})
+@Description("Signature or verification of a JWT")
+@StackTrace(false)
+@Threshold("1 ms")
+public class JwtEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Subject")
+    public String subject;
+
+    @Label("Outcome")
+    public String outcome;
+
+    public JwtEvent(String operation) {
+        this.operation = operation;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bci.desafio.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("com.bci.desafio.PasswordEncoder")
+@Label("Password Encoder")
+@Category({"BCI Desafio", "Security"})
+@Description("Hash or comparison of a password with the configured encoder")
+@StackTrace(false)
+@Threshold("0 ms")
+public class PasswordEncoderEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Outcome")
+    public String outcome;
+
+    public PasswordEncoderEvent(String operation) {
+        this.operation = operation;
+    }
+}
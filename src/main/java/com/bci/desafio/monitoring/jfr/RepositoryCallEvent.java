@@ -0,0 +1,25 @@
+package com.bci.desafio.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+@Name("com.bci.desafio.RepositoryCall")
+@Label("Repository Call")
+@Category({"BCI Desafio", "Persistence"})
+@Description("Invocation of a Spring Data repository method")
+@Threshold("10 ms")
+public class RepositoryCallEvent extends Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,38 @@
+package com.bci.desafio.monitoring.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Wraps every repository call in a {@link RepositoryCallEvent}. The outcome is the simple name of the
+ * exception when the call fails.
+ */
+class RepositoryEventInterceptor implements MethodInterceptor {
+
+    private final String repository;
+
+    RepositoryEventInterceptor(Class<?> repositoryInterface) {
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.repository = repository;
+        event.method = invocation.getMethod().getName();
+        event.begin();
+        try {
+            Object result = invocation.proceed();
+            event.outcome = "success";
+            return result;
+        } catch (Throwable e) {
+            event.outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+}
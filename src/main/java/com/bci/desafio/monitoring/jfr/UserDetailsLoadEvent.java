@@ -0,0 +1,28 @@
+package com.bci.desafio.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("com.bci.desafio.UserDetailsLoad")
+@Label("User Details Load")
+@Category({"BCI Desafio", "Security"})
+@Description("Load of the user details used by Spring Security")
+@StackTrace(false)
+@Threshold("5 ms")
+public class UserDetailsLoadEvent extends Event {
+
+    @Label("Subject")
+    public String subject;
+
+    @Label("Outcome")
+    public String outcome;
+
+    public UserDetailsLoadEvent(String subject) {
+        this.subject = subject;
+    }
+}
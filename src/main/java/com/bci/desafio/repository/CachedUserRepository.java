@@ -0,0 +1,27 @@
+package com.bci.desafio.repository;
+
+import com.bci.desafio.domain.User;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * User lookups by email served from the second-level cache: the email is the natural id of {@link User}, so
+ * a cached lookup resolves the id and the user without touching the database.
+ */
+public interface CachedUserRepository {
+
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Loads the user and its phones from the cache when both are there, otherwise with a single query.
+     */
+    Optional<User> findWithPhonesByEmail(String email);
+
+    /**
+     * Writes the last login without evicting the cached users, so the cached copy of a user may show an older
+     * last login, as it already does with the write-behind of {@code LastLoginWriter}.
+     */
+    int updateLastLogin(UUID id, LocalDateTime lastLogin);
+}
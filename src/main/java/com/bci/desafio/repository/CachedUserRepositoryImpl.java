@@ -0,0 +1,103 @@
+package com.bci.desafio.repository;
+
+import com.bci.desafio.datasource.RecentWrites;
+import com.bci.desafio.domain.User;
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.PersistenceContext.NaturalIdHelper;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public class CachedUserRepositoryImpl implements CachedUserRepository {
+
+    /**
+     * A query space no entity is mapped to: without it Hibernate would evict every cache region after a native update.
+     */
+    private static final String LAST_LOGIN_SPACE = "users.last_login";
+    private static final String PHONES_ROLE = User.class.getName() + ".phones";
+
+    private final RecentWrites recentWrites;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CachedUserRepositoryImpl(RecentWrites recentWrites) {
+        this.recentWrites = recentWrites;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmail(String email) {
+        return recentWrites.read(email, () -> loadByEmail(email));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findWithPhonesByEmail(String email) {
+        return recentWrites.read(email, () -> {
+            Serializable id = cachedId(email);
+            if (id == null) {
+                return fetchWithPhones(email);
+            }
+            User user = entityManager.find(User.class, id);
+            if (user != null) {
+                Hibernate.initialize(user.getPhones());
+            }
+            return Optional.ofNullable(user);
+        });
+    }
+
+    @Override
+    @Transactional
+    public int updateLastLogin(UUID id, LocalDateTime lastLogin) {
+        return entityManager.unwrap(Session.class)
+                .createNativeQuery("UPDATE users SET last_login = :lastLogin WHERE id = :id")
+                .addSynchronizedQuerySpace(LAST_LOGIN_SPACE)
+                .setParameter("lastLogin", Timestamp.valueOf(lastLogin))
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    /**
+     * @return the id of the user when the user and its phones are in the second-level cache, null otherwise
+     */
+    private Serializable cachedId(String email) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(User.class);
+        Serializable id = session.getPersistenceContext().getNaturalIdHelper()
+                .findCachedNaturalIdResolution(persister, new Object[]{email});
+        if (id == null || id == NaturalIdHelper.INVALID_NATURAL_ID_REFERENCE) {
+            return null;
+        }
+        Cache cache = session.getFactory().getCache();
+        return cache.containsEntity(User.class, id) && cache.containsCollection(PHONES_ROLE, id) ? id : null;
+    }
+
+    /**
+     * Loads the user and its phones with a single query, which also puts them in the second-level cache.
+     */
+    private Optional<User> fetchWithPhones(String email) {
+        return entityManager.createQuery("select distinct u from User u left join fetch u.phones where u.email = :email", User.class)
+                .setParameter("email", email)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultStream()
+                .findFirst();
+    }
+
+    private Optional<User> loadByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+}
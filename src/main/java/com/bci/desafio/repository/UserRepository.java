@@ -2,11 +2,36 @@ package com.bci.desafio.repository;
 
 import com.bci.desafio.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface UserRepository extends JpaRepository<User, UUID> {
-    Optional<User> findByEmail(String email);
+/**
+ * When users are sharded, a call taking a user or an email runs on the shard of that email. The queries over every
+ * user, such as {@link #streamAllEmails()}, read the shard chosen by the caller with {@code UserShards}.
+ */
+public interface UserRepository extends JpaRepository<User, UUID>, CachedUserRepository {
     boolean existsByEmail(String email);
+
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @Query("select u.email, u.tokenEpoch from User u where u.tokenEpoch > 0")
+    List<Object[]> findRevokedTokenEpochs();
+
+    @Query("select u.tokenEpoch from User u where u.email = :email")
+    Optional<Integer> findTokenEpochByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("update User u set u.tokenEpoch = u.tokenEpoch + 1 where u.email = :email")
+    int advanceTokenEpoch(@Param("email") String email);
+
+    @Modifying
+    @Query("update User u set u.tokenEpoch = u.tokenEpoch + 1, u.isActive = false where u.email = :email")
+    int deactivate(@Param("email") String email);
 }
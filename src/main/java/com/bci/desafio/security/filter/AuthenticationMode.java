@@ -0,0 +1,13 @@
+package com.bci.desafio.security.filter;
+
+/**
+ * How {@link JwtRequestFilter} resolves the principal of a verified token.
+ */
+public enum AuthenticationMode {
+    /** Loads the user from the database on every request. */
+    DATABASE,
+    /** Loads the user from the database, keeping it in a bounded cache for a short time. */
+    CACHED,
+    /** Builds the principal from the verified claims alone, without touching the database. */
+    CLAIMS
+}
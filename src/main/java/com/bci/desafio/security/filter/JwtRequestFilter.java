@@ -1,9 +1,19 @@
 package com.bci.desafio.security.filter;
 
+import com.bci.desafio.monitoring.RequestTimings;
+import com.bci.desafio.security.service.TokenEpochs;
+import com.bci.desafio.security.service.UserDetailsCache;
 import com.bci.desafio.security.utils.JWTUtils;
-import lombok.AllArgsConstructor;
+import com.bci.desafio.security.utils.VerifiedClaims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,35 +25,104 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Collections;
 
 @Component
-@AllArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
     private final JWTUtils jwtUtils;
+    private final TokenEpochs tokenEpochs;
+    private final AuthenticationMode authenticationMode;
+    private final Counter validTokens;
+    private final Counter expiredTokens;
+    private final Counter invalidTokens;
+    private final Counter missingTokens;
+    private final Counter revokedTokens;
+
+    public JwtRequestFilter(UserDetailsService userDetailsService, UserDetailsCache userDetailsCache, JWTUtils jwtUtils,
+                            TokenEpochs tokenEpochs,
+                            @Value("${security.jwt.authentication-mode:CLAIMS}") AuthenticationMode authenticationMode,
+                            MeterRegistry meterRegistry) {
+        this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
+        this.jwtUtils = jwtUtils;
+        this.tokenEpochs = tokenEpochs;
+        this.authenticationMode = authenticationMode;
+        this.validTokens = outcomeCounter("valid", meterRegistry);
+        this.expiredTokens = outcomeCounter("expired", meterRegistry);
+        this.invalidTokens = outcomeCounter("invalid", meterRegistry);
+        this.missingTokens = outcomeCounter("missing", meterRegistry);
+        this.revokedTokens = outcomeCounter("revoked", meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String token = null;
+        VerifiedClaims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            token = authorizationHeader.substring(7);
-            username = this.jwtUtils.getUsername(token);
+            try {
+                long start = RequestTimings.start();
+                claims = this.jwtUtils.verify(authorizationHeader.substring(7));
+                RequestTimings.stop("token-verify", start);
+            } catch (ExpiredJwtException e) {
+                expiredTokens.increment();
+                throw e;
+            } catch (JwtException | IllegalArgumentException e) {
+                invalidTokens.increment();
+                throw e;
+            }
+        } else {
+            missingTokens.increment();
+        }
+
+        if (claims != null && claims.getSubject() != null && !tokenEpochs.isCurrent(claims.getSubject(), claims.getTokenEpoch())) {
+            revokedTokens.increment();
+            claims = null;
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtUtils.validateToken(token, userDetails)) {
+        if (claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            long start = RequestTimings.start();
+            UserDetails userDetails = loadUserDetails(claims);
+            RequestTimings.stop("auth-user", start);
+            if (jwtUtils.validateToken(claims, userDetails)) {
+                validTokens.increment();
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            } else if (claims.isExpired()) {
+                expiredTokens.increment();
+            } else {
+                invalidTokens.increment();
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    private static Counter outcomeCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("security.jwt.requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private UserDetails loadUserDetails(VerifiedClaims claims) {
+        switch (authenticationMode) {
+            case CLAIMS:
+                return User.withUsername(claims.getSubject())
+                        .password("")
+                        .authorities(claims.getRole() != null
+                                ? AuthorityUtils.createAuthorityList(claims.getRole())
+                                : Collections.emptyList())
+                        .build();
+            case CACHED:
+                return userDetailsCache.loadUserByUsername(claims.getSubject());
+            default:
+                return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package com.bci.desafio.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * HTTP Basic authentication backed by {@link DaoAuthenticationProvider}, remembering for a short time the
+ * credentials it already verified, so a client sending Basic on every call pays one bcrypt per TTL instead of
+ * one per request. Only the principal and its authorities are cached, next to an HMAC of the credentials with a
+ * key that never leaves the process; every authentication returned carries no credentials. The entry of a user is
+ * dropped when its sessions are revoked or it is deactivated.
+ */
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final DaoAuthenticationProvider delegate;
+    private final boolean enabled;
+    private final Cache<String, VerifiedCredentials> cache;
+    private final ThreadLocal<Mac> mac;
+
+    public CachingAuthenticationProvider(UserDetailsServiceImpl userDetailsService, PasswordEncoder passwordEncoder,
+                                         @Value("${security.basic-auth.cache.enabled:true}") boolean enabled,
+                                         @Value("${security.basic-auth.cache.max-size:10000}") long maxSize,
+                                         @Value("${security.basic-auth.cache.ttl:5m}") Duration ttl,
+                                         MeterRegistry meterRegistry) {
+        this.delegate = new DaoAuthenticationProvider();
+        this.delegate.setUserDetailsService(userDetailsService);
+        this.delegate.setPasswordEncoder(passwordEncoder);
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "basic-auth.credentials");
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec keySpec = new SecretKeySpec(key, "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac hmac = Mac.getInstance("HmacSHA256");
+                hmac.init(keySpec);
+                return hmac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!enabled || authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+        String username = authentication.getName();
+        byte[] digest = digest(username, authentication.getCredentials().toString());
+        VerifiedCredentials verified = cache.getIfPresent(username);
+        if (verified == null || !MessageDigest.isEqual(verified.digest, digest)) {
+            Authentication result = delegate.authenticate(authentication);
+            verified = new VerifiedCredentials(digest, result.getPrincipal(), result.getAuthorities());
+            cache.put(username, verified);
+        }
+        UsernamePasswordAuthenticationToken result = new UsernamePasswordAuthenticationToken(
+                verified.principal, null, verified.authorities);
+        result.setDetails(authentication.getDetails());
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    private byte[] digest(String username, String password) {
+        Mac hmac = mac.get();
+        hmac.update(username.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return hmac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class VerifiedCredentials {
+        private final byte[] digest;
+        private final Object principal;
+        private final Collection<? extends GrantedAuthority> authorities;
+
+        private VerifiedCredentials(byte[] digest, Object principal, Collection<? extends GrantedAuthority> authorities) {
+            this.digest = digest;
+            this.principal = principal;
+            this.authorities = authorities;
+        }
+    }
+}
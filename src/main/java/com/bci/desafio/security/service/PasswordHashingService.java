@@ -0,0 +1,104 @@
+package com.bci.desafio.security.service;
+
+import com.bci.desafio.exceptions.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs password hashing on a dedicated pool sized to the available cores, so bcrypt work never
+ * occupies the servlet threads. When the queue is full new work is rejected instead of piling up.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${security.password-hashing.threads:0}") int threads,
+                                  @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                  MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hashTimer = Timer.builder("password.hashing.latency")
+                .description("Time spent hashing a password")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("password.hashing.queue.wait")
+                .description("Time a password waited in the queue before hashing started")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Passwords rejected because the hashing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Passwords waiting to be hashed")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Passwords being hashed right now")
+                .register(meterRegistry);
+        log.info("Password hashing pool started with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        try {
+            return submit(rawPassword);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException("The server is busy registering other users, please try again later");
+        }
+    }
+
+    /**
+     * Like {@link #encode}, but when the queue is full the password is hashed on the calling thread
+     * instead of being rejected. Meant for bulk callers that can absorb the back pressure.
+     */
+    public CompletableFuture<String> encodeOrRunInline(CharSequence rawPassword) {
+        try {
+            return submit(rawPassword);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(timedEncode(rawPassword));
+        }
+    }
+
+    private CompletableFuture<String> submit(CharSequence rawPassword) {
+        long submittedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            return timedEncode(rawPassword);
+        }, executor);
+    }
+
+    private String timedEncode(CharSequence rawPassword) {
+        long startedAt = System.nanoTime();
+        try {
+            return passwordEncoder.encode(rawPassword);
+        } finally {
+            hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
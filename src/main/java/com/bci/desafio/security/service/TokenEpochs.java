@@ -0,0 +1,49 @@
+package com.bci.desafio.security.service;
+
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the token epoch of every user that has revoked its tokens. A token is accepted only
+ * if its epoch is not older than the user's, so revocation is a map lookup on the authenticated path.
+ * Users that never revoked anything are not in the map and accept epoch 0.
+ */
+@Service
+@Slf4j
+public class TokenEpochs {
+
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final Map<String, Integer> epochs = new ConcurrentHashMap<>();
+
+    public TokenEpochs(UserRepository userRepository, UserShards userShards) {
+        this.userRepository = userRepository;
+        this.userShards = userShards;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        for (List<Object[]> shardEpochs : userShards.onEachShard(userRepository::findRevokedTokenEpochs)) {
+            for (Object[] row : shardEpochs) {
+                advance((String) row[0], (Integer) row[1]);
+            }
+        }
+        log.info("Token epochs loaded for {} users", epochs.size());
+    }
+
+    public boolean isCurrent(String subject, int tokenEpoch) {
+        Integer current = epochs.get(subject);
+        return current == null || tokenEpoch >= current;
+    }
+
+    public void advance(String email, int epoch) {
+        epochs.merge(email, epoch, Math::max);
+    }
+}
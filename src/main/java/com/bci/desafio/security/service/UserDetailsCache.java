@@ -0,0 +1,34 @@
+package com.bci.desafio.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class UserDetailsCache {
+
+    private final UserDetailsServiceImpl userDetailsService;
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(UserDetailsServiceImpl userDetailsService,
+                            @Value("${security.jwt.user-details-cache.max-size:10000}") long maxSize,
+                            @Value("${security.jwt.user-details-cache.ttl:60s}") Duration ttl) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public UserDetails loadUserByUsername(String username) {
+        return cache.get(username, userDetailsService::loadUserByUsername);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+}
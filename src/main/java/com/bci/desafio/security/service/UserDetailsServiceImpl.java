@@ -1,12 +1,14 @@
 package com.bci.desafio.security.service;
 
 import com.bci.desafio.domain.User;
+import com.bci.desafio.monitoring.jfr.UserDetailsLoadEvent;
 import com.bci.desafio.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @AllArgsConstructor
@@ -15,14 +17,26 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     private final UserRepository userRepository;
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Username not found: " + email));
+        UserDetailsLoadEvent event = new UserDetailsLoadEvent(email);
+        event.begin();
+        try {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("Username not found: " + email));
 
-        org.springframework.security.core.userdetails.User.UserBuilder userBuilder =
-                org.springframework.security.core.userdetails.User.withUsername(email)
-                        .password(user.getPassword())
-                        .roles(user.getRole());
-        return userBuilder.build();
+            org.springframework.security.core.userdetails.User.UserBuilder userBuilder =
+                    org.springframework.security.core.userdetails.User.withUsername(email)
+                            .password(user.getPassword())
+                            .roles(user.getRole())
+                            .disabled(!user.isActive());
+            event.outcome = "found";
+            return userBuilder.build();
+        } catch (UsernameNotFoundException e) {
+            event.outcome = "not-found";
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 }
@@ -0,0 +1,240 @@
+package com.bci.desafio.security.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ES256 keys identified by {@code kid}. New tokens are signed with the active key, and every key of the ring
+ * is kept for verification and published in the JWKS, so a key can be rotated by adding it to the key store,
+ * making it the active one and removing the old one once its tokens have expired.
+ */
+public class EcKeyRing implements JwsKeys {
+
+    private static final int COORDINATE_SIZE = 32;
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final ThreadLocal<Signature> ECDSA = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance("SHA256withECDSA");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA256withECDSA is not available", e);
+        }
+    });
+
+    private final String activeKeyId;
+    private final PrivateKey signingKey;
+    private final Map<String, ECPublicKey> publicKeys;
+    private final String jwks;
+
+    public EcKeyRing(String activeKeyId, PrivateKey signingKey, Map<String, ECPublicKey> publicKeys) {
+        if (!publicKeys.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("The active key " + activeKeyId + " is not in the key ring");
+        }
+        this.activeKeyId = activeKeyId;
+        this.signingKey = signingKey;
+        this.publicKeys = Collections.unmodifiableMap(new LinkedHashMap<>(publicKeys));
+        this.jwks = toJwks(this.publicKeys);
+    }
+
+    /**
+     * Loads every EC key entry of a PKCS12 key store; the alias of each entry is its {@code kid}. The active key
+     * may only be left out when the store holds a single EC key, since PKCS12 does not keep the aliases in order.
+     */
+    public static EcKeyRing load(Resource keyStore, char[] password, String activeKeyId) throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = keyStore.getInputStream()) {
+            store.load(in, password);
+        }
+        Map<String, ECPublicKey> publicKeys = new LinkedHashMap<>();
+        List<String> aliases = new ArrayList<>();
+        for (Enumeration<String> e = store.aliases(); e.hasMoreElements(); ) {
+            String alias = e.nextElement();
+            Certificate certificate = store.getCertificate(alias);
+            if (certificate != null && certificate.getPublicKey() instanceof ECPublicKey) {
+                publicKeys.put(alias, (ECPublicKey) certificate.getPublicKey());
+                aliases.add(alias);
+            }
+        }
+        if (aliases.isEmpty()) {
+            throw new IllegalArgumentException("The key store has no EC keys");
+        }
+        String active = activeKeyId;
+        if (active == null || active.isEmpty()) {
+            if (aliases.size() > 1) {
+                throw new IllegalArgumentException("The key store has " + aliases.size()
+                        + " EC keys, security.jwt.active-key-id must name the one that signs");
+            }
+            active = aliases.get(0);
+        }
+        Key key = store.getKey(active, password);
+        if (!(key instanceof PrivateKey)) {
+            throw new IllegalArgumentException("There is no private key for " + active);
+        }
+        return new EcKeyRing(active, (PrivateKey) key, publicKeys);
+    }
+
+    /**
+     * Creates a ring with a single P-256 key that lives as long as the process.
+     */
+    public static EcKeyRing generate() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        byte[] thumbprint = MessageDigest.getInstance("SHA-256").digest(keyPair.getPublic().getEncoded());
+        String keyId = BASE64_URL.encodeToString(thumbprint).substring(0, 16);
+        return new EcKeyRing(keyId, keyPair.getPrivate(), Collections.singletonMap(keyId, (ECPublicKey) keyPair.getPublic()));
+    }
+
+    @Override
+    public String algorithm() {
+        return "ES256";
+    }
+
+    @Override
+    public String activeKeyId() {
+        return activeKeyId;
+    }
+
+    @Override
+    public byte[] sign(byte[] input, int length) {
+        try {
+            Signature ecdsa = ECDSA.get();
+            ecdsa.initSign(signingKey);
+            ecdsa.update(input, 0, length);
+            return derToConcat(ecdsa.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign the token", e);
+        }
+    }
+
+    @Override
+    public boolean verify(String keyId, byte[] input, int length, byte[] signature) {
+        ECPublicKey publicKey = publicKeys.get(keyId);
+        if (publicKey == null || signature.length != 2 * COORDINATE_SIZE) {
+            return false;
+        }
+        try {
+            Signature ecdsa = ECDSA.get();
+            ecdsa.initVerify(publicKey);
+            ecdsa.update(input, 0, length);
+            return ecdsa.verify(concatToDer(signature));
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Key verificationKey(String keyId) {
+        return publicKeys.get(keyId);
+    }
+
+    public String getJwks() {
+        return jwks;
+    }
+
+    private static String toJwks(Map<String, ECPublicKey> publicKeys) {
+        List<Map<String, String>> keys = new ArrayList<>(publicKeys.size());
+        publicKeys.forEach((kid, key) -> {
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", "ES256");
+            jwk.put("x", BASE64_URL.encodeToString(unsigned(key.getW().getAffineX())));
+            jwk.put("y", BASE64_URL.encodeToString(unsigned(key.getW().getAffineY())));
+            keys.add(jwk);
+        });
+        try {
+            return new ObjectMapper().writeValueAsString(Collections.singletonMap("keys", keys));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write the JWKS", e);
+        }
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[COORDINATE_SIZE];
+        int length = Math.min(bytes.length, COORDINATE_SIZE);
+        System.arraycopy(bytes, bytes.length - length, fixed, COORDINATE_SIZE - length, length);
+        return fixed;
+    }
+
+    /**
+     * JWS carries the ECDSA signature as R and S concatenated, while the JDK reads and writes it as a DER sequence.
+     */
+    static byte[] derToConcat(byte[] der) {
+        int offset = der[1] < 0 ? 3 : 2;
+        int rLength = der[offset + 1];
+        int rStart = offset + 2;
+        int sLength = der[rStart + rLength + 1];
+        int sStart = rStart + rLength + 2;
+        byte[] concat = new byte[2 * COORDINATE_SIZE];
+        copyUnsigned(der, rStart, rLength, concat, 0);
+        copyUnsigned(der, sStart, sLength, concat, COORDINATE_SIZE);
+        return concat;
+    }
+
+    static byte[] concatToDer(byte[] concat) {
+        byte[] r = derInteger(concat, 0);
+        byte[] s = derInteger(concat, COORDINATE_SIZE);
+        int sequenceLength = 2 + r.length + 2 + s.length;
+        byte[] der = new byte[(sequenceLength > 127 ? 3 : 2) + sequenceLength];
+        int i = 0;
+        der[i++] = 0x30;
+        if (sequenceLength > 127) {
+            der[i++] = (byte) 0x81;
+        }
+        der[i++] = (byte) sequenceLength;
+        der[i++] = 0x02;
+        der[i++] = (byte) r.length;
+        System.arraycopy(r, 0, der, i, r.length);
+        i += r.length;
+        der[i++] = 0x02;
+        der[i++] = (byte) s.length;
+        System.arraycopy(s, 0, der, i, s.length);
+        return der;
+    }
+
+    private static void copyUnsigned(byte[] source, int start, int length, byte[] target, int targetOffset) {
+        while (length > COORDINATE_SIZE && source[start] == 0) {
+            start++;
+            length--;
+        }
+        System.arraycopy(source, start, target, targetOffset + COORDINATE_SIZE - length, length);
+    }
+
+    private static byte[] derInteger(byte[] concat, int offset) {
+        int start = offset;
+        int end = offset + COORDINATE_SIZE;
+        while (start < end - 1 && concat[start] == 0) {
+            start++;
+        }
+        boolean padded = concat[start] < 0;
+        byte[] integer = new byte[end - start + (padded ? 1 : 0)];
+        System.arraycopy(concat, start, integer, padded ? 1 : 0, end - start);
+        return integer;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bci.desafio.security.utils;
+
+import io.jsonwebtoken.impl.TextCodec;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+
+/**
+ * HS256 with the shared {@code security.jwt.secret}. The secret is decoded once, the same way jjwt does,
+ * and every thread keeps its own initialized {@link Mac}.
+ */
+public class HmacKeys implements JwsKeys {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKey key;
+    private final ThreadLocal<Mac> mac;
+
+    public HmacKeys(String base64Secret) {
+        this.key = new SecretKeySpec(TextCodec.BASE64.decode(base64Secret), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    @Override
+    public String algorithm() {
+        return "HS256";
+    }
+
+    @Override
+    public String activeKeyId() {
+        return null;
+    }
+
+    @Override
+    public byte[] sign(byte[] input, int length) {
+        Mac hmac = mac.get();
+        hmac.update(input, 0, length);
+        return hmac.doFinal();
+    }
+
+    @Override
+    public boolean verify(String keyId, byte[] input, int length, byte[] signature) {
+        return MessageDigest.isEqual(sign(input, length), signature);
+    }
+
+    @Override
+    public Key verificationKey(String keyId) {
+        return key;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance(ALGORITHM);
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -1,75 +1,198 @@
 package com.bci.desafio.security.utils;
 
+import com.bci.desafio.domain.User;
+import com.bci.desafio.monitoring.jfr.JwtEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import lombok.AllArgsConstructor;
-import lombok.NoArgsConstructor;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Component
-@AllArgsConstructor
-@NoArgsConstructor
 public class JWTUtils {
 
-    @Value("${security.jwt.secret}")
-    private String secret;
+    private static final ThreadLocal<MessageDigest> TOKEN_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
 
-    @Value("${security.jwt.ttlMillis}")
-    private long ttlMillis;
+    private final JwtCodec codec;
+    private final SigningKeyResolver signingKeyResolver;
+    private final long ttlMillis;
+    private final Cache<String, VerifiedClaims> claimsCache;
+    private final Timer signTimer;
+    private final Timer verifyTimer;
+    private final Timer parseTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public JWTUtils(JwtCodec codec,
+                    @Value("${security.jwt.ttlMillis}") long ttlMillis,
+                    @Value("${security.jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize,
+                    MeterRegistry meterRegistry) {
+        this.codec = codec;
+        this.signingKeyResolver = new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                return codec.verificationKey(header.getAlgorithm(), header.getKeyId());
+            }
+        };
+        this.ttlMillis = ttlMillis;
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .build();
+        this.signTimer = jwtTimer("sign", meterRegistry);
+        this.verifyTimer = jwtTimer("verify", meterRegistry);
+        this.parseTimer = jwtTimer("parse", meterRegistry);
+        this.cacheHits = Counter.builder("security.jwt.claims_cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("security.jwt.claims_cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
 
     public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        GrantedAuthority rol = userDetails.getAuthorities().stream().collect(Collectors.toList()).get(0);
-        claims.put("rol", rol);
-        return createToken(userDetails.getUsername(), claims);
+        Iterator<? extends GrantedAuthority> authorities = userDetails.getAuthorities().iterator();
+        return createToken(userDetails.getUsername(), authorities.hasNext() ? authorities.next().getAuthority() : null, 0);
     }
 
-    private String createToken(String username, Map<String, Object> claims) {
+    public String generateToken(User user) {
+        return createToken(user.getEmail(), "ROLE_" + user.getRole(), user.getTokenEpoch());
+    }
 
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(username)
-                .setIssuedAt(Date.from(Instant.now()))
-                .setExpiration(Date.from(Instant.now().plusMillis(ttlMillis)))
-                .signWith(SignatureAlgorithm.HS256, secret)
-                .compact();
+    private String createToken(String username, String role, int tokenEpoch) {
+        JwtEvent event = new JwtEvent("sign");
+        event.subject = username;
+        event.begin();
+        long now = System.currentTimeMillis();
+        String token = signTimer.record(() -> codec.encode(username, role, tokenEpoch, now / 1000, (now + ttlMillis) / 1000));
+        event.outcome = "signed";
+        event.commit();
+        return token;
+    }
 
+    /**
+     * Checks the signature of the token only the first time it is seen; afterwards the verified claims
+     * are served from a bounded cache keyed by the token digest until the token expires.
+     */
+    public VerifiedClaims verify(String token) {
+        JwtEvent event = new JwtEvent("verify");
+        event.begin();
+        try {
+            VerifiedClaims claims = verifyTimer.record(() -> {
+                String key = digest(token);
+                VerifiedClaims cached = claimsCache.getIfPresent(key);
+                if (cached != null && !cached.isExpired()) {
+                    cacheHits.increment();
+                    event.outcome = "cached";
+                    return cached;
+                }
+                cacheMisses.increment();
+                VerifiedClaims verified = parseTimer.record(() -> codec.decode(token));
+                claimsCache.put(key, verified);
+                event.outcome = "verified";
+                return verified;
+            });
+            event.subject = claims.getSubject();
+            return claims;
+        } catch (ExpiredJwtException e) {
+            event.outcome = "expired";
+            throw e;
+        } catch (JwtException | IllegalArgumentException e) {
+            event.outcome = "invalid";
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     public String getUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
     public LocalDateTime getExpirationDate(String token) {
-        return extractClaim(token, Claims::getExpiration).toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+        return toLocalDateTime(verify(token).getExpiration());
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         return claimsResolver.apply(getAllClaims(token));
     }
     public Claims getAllClaims(String token) {
-        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+        return Jwts.parser().setSigningKeyResolver(signingKeyResolver).parseClaimsJws(token).getBody();
     }
 
     public boolean validateToken(String token, UserDetails userDetails){
-        final String username = getUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return validateToken(verify(token), userDetails);
+    }
+
+    public boolean validateToken(VerifiedClaims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.isExpired();
+    }
+
+    private static Timer jwtTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder("security.jwt.operations")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    private Boolean isTokenExpired(String token) {
-        return getExpirationDate(token).isBefore(LocalDateTime.now());
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private static String digest(String token) {
+        byte[] hash = TOKEN_DIGEST.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static class ExpireAtTokenExpiration implements Expiry<String, VerifiedClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedClaims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return Long.MAX_VALUE;
+            }
+            long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.bci.desafio.security.utils;
+
+import java.security.Key;
+
+/**
+ * Keys of one JWS algorithm, used by {@link JwtCodec} to sign new tokens and to check the signature of
+ * tokens whose header names this algorithm.
+ */
+public interface JwsKeys {
+
+    String algorithm();
+
+    /**
+     * Key id written in the header of new tokens, or {@code null} when the algorithm has a single key.
+     */
+    String activeKeyId();
+
+    byte[] sign(byte[] input, int length);
+
+    boolean verify(String keyId, byte[] input, int length, byte[] signature);
+
+    Key verificationKey(String keyId);
+}
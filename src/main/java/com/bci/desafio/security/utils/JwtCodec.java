@@ -0,0 +1,229 @@
+package com.bci.desafio.security.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codec for the fixed claim set of this service: sub, rol, iat and exp. New tokens are signed with one
+ * {@link JwsKeys}; tokens are verified with the keys of the algorithm named in their header, so HS256 tokens
+ * already in circulation stay valid after switching the signing algorithm. Tokens stay readable by jjwt, and
+ * tokens issued by jjwt, which carry the role as a {@code {"authority": ...}} object, are still accepted.
+ */
+public class JwtCodec {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final JwsKeys signingKeys;
+    private final Map<String, JwsKeys> verificationKeys = new HashMap<>();
+    private final String header;
+    private final Header parsedHeader;
+
+    public JwtCodec(String base64Secret) {
+        this(new HmacKeys(base64Secret));
+    }
+
+    public JwtCodec(JwsKeys signingKeys, JwsKeys... otherVerificationKeys) {
+        this.signingKeys = signingKeys;
+        for (JwsKeys keys : otherVerificationKeys) {
+            verificationKeys.put(keys.algorithm(), keys);
+        }
+        verificationKeys.put(signingKeys.algorithm(), signingKeys);
+        this.parsedHeader = new Header(signingKeys.algorithm(), signingKeys.activeKeyId());
+        String json = "{\"alg\":\"" + signingKeys.algorithm() + "\""
+                + (signingKeys.activeKeyId() != null ? ",\"kid\":\"" + signingKeys.activeKeyId() + "\"" : "") + "}";
+        this.header = ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Key verificationKey(String algorithm, String keyId) {
+        JwsKeys keys = verificationKeys.get(algorithm);
+        if (keys == null) {
+            throw new UnsupportedJwtException("Unsupported JWT signature algorithm: " + algorithm);
+        }
+        return keys.verificationKey(keyId);
+    }
+
+    public String encode(String subject, String role, long issuedAtSeconds, long expirationSeconds) {
+        return encode(subject, role, 0, issuedAtSeconds, expirationSeconds);
+    }
+
+    /**
+     * The token epoch is only written when it is not zero, so tokens of users that never revoked their
+     * sessions keep the same size.
+     */
+    public String encode(String subject, String role, int tokenEpoch, long issuedAtSeconds, long expirationSeconds) {
+        StringBuilder payload = new StringBuilder(64 + subject.length());
+        payload.append("{\"sub\":");
+        appendString(payload, subject);
+        if (role != null) {
+            payload.append(",\"").append(VerifiedClaims.ROLE_CLAIM).append("\":");
+            appendString(payload, role);
+        }
+        if (tokenEpoch != 0) {
+            payload.append(",\"").append(VerifiedClaims.EPOCH_CLAIM).append("\":").append(tokenEpoch);
+        }
+        payload.append(",\"iat\":").append(issuedAtSeconds)
+                .append(",\"exp\":").append(expirationSeconds)
+                .append('}');
+
+        String signingInput = header + '.' + ENCODER.encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] input = signingInput.getBytes(StandardCharsets.US_ASCII);
+        return signingInput + '.' + ENCODER.encodeToString(signingKeys.sign(input, input.length));
+    }
+
+    public VerifiedClaims decode(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters. Found: "
+                    + token.chars().filter(c -> c == '.').count());
+        }
+        Header tokenHeader = readHeader(token.substring(0, headerEnd));
+        JwsKeys keys = verificationKeys.get(tokenHeader.algorithm);
+        if (keys == null) {
+            throw new UnsupportedJwtException("Unsupported JWT signature algorithm: " + tokenHeader.algorithm);
+        }
+
+        byte[] input = token.getBytes(StandardCharsets.US_ASCII);
+        if (!keys.verify(tokenHeader.keyId, input, payloadEnd, base64(token.substring(payloadEnd + 1)))) {
+            throw new SignatureException("JWT signature does not match locally computed signature. "
+                    + "JWT validity cannot be asserted and should not be trusted.");
+        }
+
+        VerifiedClaims claims = readClaims(base64(token.substring(headerEnd + 1, payloadEnd)));
+        if (claims.isExpired()) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + claims.getExpiration().toInstant()
+                    + ". Current time: " + new Date().toInstant());
+        }
+        return claims;
+    }
+
+    private Header readHeader(String encoded) {
+        if (header.equals(encoded)) {
+            return parsedHeader;
+        }
+        String algorithm = null;
+        String keyId = null;
+        try (JsonParser parser = JSON.createParser(base64(encoded))) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("alg".equals(field)) {
+                    algorithm = parser.getValueAsString();
+                } else if ("kid".equals(field)) {
+                    keyId = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new MalformedJwtException("Unable to read JWT header: " + e.getMessage(), e);
+        }
+        return new Header(algorithm, keyId);
+    }
+
+    private static VerifiedClaims readClaims(byte[] payload) {
+        String subject = null;
+        String role = null;
+        int tokenEpoch = 0;
+        Date issuedAt = null;
+        Date expiration = null;
+        try (JsonParser parser = JSON.createParser(payload)) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "sub":
+                        subject = parser.getValueAsString();
+                        break;
+                    case VerifiedClaims.ROLE_CLAIM:
+                        role = value == JsonToken.START_OBJECT ? readAuthority(parser) : parser.getValueAsString();
+                        break;
+                    case VerifiedClaims.EPOCH_CLAIM:
+                        tokenEpoch = parser.getIntValue();
+                        break;
+                    case "iat":
+                        issuedAt = new Date(parser.getLongValue() * 1000);
+                        break;
+                    case "exp":
+                        expiration = new Date(parser.getLongValue() * 1000);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new MalformedJwtException("Unable to read JWT claims: " + e.getMessage(), e);
+        }
+        return new VerifiedClaims(subject, role, tokenEpoch, issuedAt, expiration);
+    }
+
+    private static String readAuthority(JsonParser parser) throws IOException {
+        String authority = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("authority".equals(field)) {
+                authority = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return authority;
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new MalformedJwtException("JWT section is not a JSON object");
+        }
+    }
+
+    private static byte[] base64(String section) {
+        try {
+            return DECODER.decode(section);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Invalid Base64url in JWT: " + e.getMessage(), e);
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static final class Header {
+        private final String algorithm;
+        private final String keyId;
+
+        private Header(String algorithm, String keyId) {
+            this.algorithm = algorithm;
+            this.keyId = keyId;
+        }
+    }
+}
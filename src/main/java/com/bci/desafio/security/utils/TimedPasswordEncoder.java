@@ -0,0 +1,62 @@
+package com.bci.desafio.security.utils;
+
+import com.bci.desafio.monitoring.jfr.PasswordEncoderEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every encode and match of the wrapped encoder, as a metric and as a JFR event,
+ * so bcrypt cost shows up for both sign-up and HTTP Basic authentication.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer mismatchTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = timer("encode", "none", meterRegistry);
+        this.matchTimer = timer("matches", "match", meterRegistry);
+        this.mismatchTimer = timer("matches", "mismatch", meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordEncoderEvent event = new PasswordEncoderEvent("encode");
+        event.begin();
+        String encoded = encodeTimer.record(() -> delegate.encode(rawPassword));
+        event.outcome = "encoded";
+        event.commit();
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordEncoderEvent event = new PasswordEncoderEvent("matches");
+        event.begin();
+        long start = System.nanoTime();
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        (matches ? matchTimer : mismatchTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        event.outcome = matches ? "match" : "mismatch";
+        event.commit();
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer timer(String operation, String result, MeterRegistry meterRegistry) {
+        return Timer.builder("security.password.encoder")
+                .tag("operation", operation)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,46 @@
+package com.bci.desafio.security.utils;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Immutable view of a token whose signature has already been checked, so it can be shared between
+ * the filter, the service and the claims cache without parsing the token again.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class VerifiedClaims {
+
+    public static final String ROLE_CLAIM = "rol";
+    public static final String EPOCH_CLAIM = "epc";
+
+    private final String subject;
+    private final String role;
+    private final int tokenEpoch;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public static VerifiedClaims from(Claims claims) {
+        Integer tokenEpoch = claims.get(EPOCH_CLAIM, Integer.class);
+        return new VerifiedClaims(claims.getSubject(), readRole(claims.get(ROLE_CLAIM)),
+                tokenEpoch != null ? tokenEpoch : 0, claims.getIssuedAt(), claims.getExpiration());
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() < System.currentTimeMillis();
+    }
+
+    private static String readRole(Object rol) {
+        if (rol instanceof Map) {
+            Object authority = ((Map<?, ?>) rol).get("authority");
+            return authority != null ? authority.toString() : null;
+        }
+        return rol != null ? rol.toString() : null;
+    }
+}
@@ -0,0 +1,163 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.domain.User;
+import com.bci.desafio.dto.BatchSignUpResultDTO;
+import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.exceptions.ConstraintsException;
+import com.bci.desafio.exceptions.UserAlreadyExistException;
+import com.bci.desafio.mapper.UserMapper;
+import com.bci.desafio.security.service.PasswordHashingService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Registers users read one by one from a JSON array or an NDJSON stream. Users are processed in chunks:
+ * checked by the {@link SignUpPipeline}, hashed in parallel and stored in one transaction per chunk. The result of each user is
+ * written as one NDJSON line as soon as its chunk is done, so memory use does not depend on the payload size.
+ */
+@Service
+@Slf4j
+public class BatchSignUpService {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final ObjectMapper objectMapper;
+    private final SignUpPipeline signUpPipeline;
+    private final UserMapper userMapper;
+    private final PasswordHashingService passwordHashingService;
+    private final UserBatchWriter userBatchWriter;
+    private final int chunkSize;
+
+    public BatchSignUpService(ObjectMapper objectMapper, SignUpPipeline signUpPipeline, UserMapper userMapper,
+                              PasswordHashingService passwordHashingService, UserBatchWriter userBatchWriter,
+                              @Value("${users.batch-sign-up.chunk-size:100}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.signUpPipeline = signUpPipeline;
+        this.userMapper = userMapper;
+        this.passwordHashingService = passwordHashingService;
+        this.userBatchWriter = userBatchWriter;
+        this.chunkSize = chunkSize;
+    }
+
+    public void register(InputStream users, OutputStream results) throws IOException {
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (MappingIterator<UserDTO> iterator = objectMapper.readerFor(UserDTO.class).readValues(users)) {
+            while (iterator.hasNextValue()) {
+                chunk.add(new Item(index++, iterator.nextValue()));
+                if (chunk.size() == chunkSize) {
+                    writeResults(process(chunk), results);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            writeResults(process(chunk), results);
+            chunk.clear();
+            writeResults(Collections.singletonList(rejected(index, null,
+                    Collections.singletonList("Malformed user: " + e.getOriginalMessage()))), results);
+            return;
+        }
+        writeResults(process(chunk), results);
+    }
+
+    private List<BatchSignUpResultDTO> process(List<Item> chunk) {
+        List<BatchSignUpResultDTO> results = new ArrayList<>(chunk.size());
+        List<Item> accepted = new ArrayList<>(chunk.size());
+        Set<String> emails = new HashSet<>();
+        for (Item item : chunk) {
+            List<String> errors = verify(item.userDTO);
+            if (errors.isEmpty() && !emails.add(item.userDTO.getEmail().toLowerCase(Locale.ROOT))) {
+                errors = Collections.singletonList("The email is repeated in the batch");
+            }
+            if (errors.isEmpty()) {
+                accepted.add(item);
+            } else {
+                results.add(rejected(item.index, item.userDTO.getEmail(), errors));
+            }
+        }
+
+        List<CompletableFuture<String>> hashes = new ArrayList<>(accepted.size());
+        for (Item item : accepted) {
+            hashes.add(passwordHashingService.encodeOrRunInline(item.userDTO.getPassword()));
+        }
+        List<UserRegistration> registrations = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Item item = accepted.get(i);
+            User user = userMapper.toUser(item.userDTO, hashes.get(i).join());
+            item.registration = new UserRegistration(user);
+            registrations.add(item.registration);
+        }
+        userBatchWriter.write(registrations);
+
+        for (Item item : accepted) {
+            UserRegistration registration = item.registration;
+            if (registration.isStored()) {
+                results.add(BatchSignUpResultDTO.builder()
+                        .index(item.index)
+                        .email(registration.getUser().getEmail())
+                        .status(BatchSignUpResultDTO.CREATED)
+                        .id(registration.getUser().getId())
+                        .build());
+            } else {
+                results.add(rejected(item.index, item.userDTO.getEmail(),
+                        Collections.singletonList(registration.getFailure().getMessage())));
+            }
+        }
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return results;
+    }
+
+    private List<String> verify(UserDTO userDTO) {
+        try {
+            signUpPipeline.verify(userDTO);
+            return Collections.emptyList();
+        } catch (ConstraintsException e) {
+            return e.getErrors();
+        } catch (UserAlreadyExistException e) {
+            return Collections.singletonList(e.getMessage());
+        }
+    }
+
+    private void writeResults(List<BatchSignUpResultDTO> results, OutputStream out) throws IOException {
+        for (BatchSignUpResultDTO result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write(NEW_LINE);
+        }
+        out.flush();
+    }
+
+    private static BatchSignUpResultDTO rejected(int index, String email, List<String> errors) {
+        return BatchSignUpResultDTO.builder()
+                .index(index)
+                .email(email)
+                .status(BatchSignUpResultDTO.REJECTED)
+                .errors(errors)
+                .build();
+    }
+
+    private static class Item {
+        private final int index;
+        private final UserDTO userDTO;
+        private UserRegistration registration;
+
+        private Item(int index, UserDTO userDTO) {
+            this.index = index;
+            this.userDTO = userDTO;
+        }
+    }
+}
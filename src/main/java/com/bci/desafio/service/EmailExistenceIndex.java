@@ -0,0 +1,86 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.repository.UserRepository;
+import com.bci.desafio.utils.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the registered emails, loaded at startup and updated on every sign-up.
+ * When it answers "definitely new" the sign-up can skip the existence query. Positive answers
+ * may be false and must be confirmed against the database, whose unique constraint remains the
+ * final authority.
+ */
+@Component
+@Slf4j
+public class EmailExistenceIndex {
+
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final BloomFilter bloomFilter;
+    private volatile boolean warmedUp;
+
+    public EmailExistenceIndex(UserRepository userRepository, UserShards userShards,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${users.email-index.enabled:true}") boolean enabled,
+                               @Value("${users.email-index.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${users.email-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.userShards = userShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long count = 0;
+        for (Long loaded : userShards.onEachShard(() -> readOnlyTransaction.execute(status -> loadEmails()))) {
+            count += loaded;
+        }
+        warmedUp = true;
+        log.info("Email index warmed up with {} users", count);
+    }
+
+    private long loadEmails() {
+        long count = 0;
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            Iterator<String> iterator = emails.iterator();
+            while (iterator.hasNext()) {
+                add(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean mightExist(String email) {
+        return !enabled || !warmedUp || bloomFilter.mightContain(normalize(email));
+    }
+
+    public void add(String email) {
+        if (enabled) {
+            bloomFilter.put(normalize(email));
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,222 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.domain.User;
+import com.bci.desafio.exceptions.SignUpRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores concurrent sign-ups together, so they share one commit. The first sign-up opens a group that takes
+ * whatever arrives during {@code users.group-commit.max-wait}, up to {@code users.group-commit.max-batch-size},
+ * and the group is written by the {@link UserBatchWriter}. Each caller gets its own user or its own failure,
+ * such as a duplicate email. A single thread writes the groups; the futures are completed on a thread of their
+ * own, so the work the callers chain on them does not delay the next group. Sign-ups submitted once the shutdown
+ * has started, the ones that find {@code users.group-commit.queue-capacity} sign-ups already waiting, and the
+ * ones still waiting when the shutdown ends, fail with a {@link SignUpRejectedException}.
+ */
+@Component
+@Slf4j
+public class GroupCommitWriter {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final UserBatchWriter userBatchWriter;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingSignUp> queue;
+    private final Counter rejectedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer waitTimer;
+    private final ExecutorService writer;
+    private final ExecutorService completer;
+    /**
+     * Submits hold the read lock while they check {@link #running} and enqueue, so none is added after shutdown.
+     */
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public GroupCommitWriter(UserBatchWriter userBatchWriter,
+                             @Value("${users.group-commit.enabled:false}") boolean enabled,
+                             @Value("${users.group-commit.max-batch-size:50}") int maxBatchSize,
+                             @Value("${users.group-commit.max-wait:5ms}") Duration maxWait,
+                             @Value("${users.group-commit.queue-capacity:200}") int queueCapacity,
+                             MeterRegistry meterRegistry) {
+        this.userBatchWriter = userBatchWriter;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.rejectedCounter = Counter.builder("users.signup.group_commit.rejected")
+                .description("Sign-ups rejected because too many were already waiting for their group commit")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("users.signup.group_commit.batch.size")
+                .description("Sign-ups stored by one group commit")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("users.signup.group_commit.wait")
+                .description("Time a sign-up waited for its group to be written, the latency added by grouping")
+                .register(meterRegistry);
+        Gauge.builder("users.signup.group_commit.pending", queue, BlockingQueue::size)
+                .description("Sign-ups waiting for their group commit")
+                .register(meterRegistry);
+
+        if (enabled) {
+            this.writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("group-commit-"));
+            this.completer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("group-commit-completion-"));
+            this.writer.execute(this::run);
+            log.info("Group commit of sign-ups enabled, up to {} users every {}", maxBatchSize, maxWait);
+        } else {
+            this.writer = null;
+            this.completer = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the stored user, or the failure of this sign-up
+     */
+    public CompletableFuture<User> submit(User user) {
+        PendingSignUp signUp = new PendingSignUp(user);
+        shutdownLock.readLock().lock();
+        try {
+            if (!running) {
+                signUp.future.completeExceptionally(shutDown());
+            } else if (!queue.offer(signUp)) {
+                rejectedCounter.increment();
+                signUp.future.completeExceptionally(
+                        new SignUpRejectedException("The server is busy storing other users, please try again later"));
+            }
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+        return signUp.future;
+    }
+
+    /**
+     * Lets the writer store what is already queued, for up to a second, and fails whatever is left after that.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(POLL_MILLIS * 10, TimeUnit.MILLISECONDS)) {
+                log.warn("Group commit did not finish in time, failing {} pending sign-ups", queue.size());
+                writer.shutdownNow();
+            }
+        } finally {
+            List<PendingSignUp> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(signUp -> signUp.future.completeExceptionally(shutDown()));
+            completer.shutdown();
+        }
+        completer.awaitTermination(POLL_MILLIS * 10, TimeUnit.MILLISECONDS);
+    }
+
+    private static SignUpRejectedException shutDown() {
+        return new SignUpRejectedException("The server is shutting down, please try again later");
+    }
+
+    private void run() {
+        List<PendingSignUp> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSignUp first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = first.enqueuedAt + maxWaitNanos;
+                while (group.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSignUp next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                write(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(signUp -> signUp.future.completeExceptionally(e));
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingSignUp> group) {
+        long start = System.nanoTime();
+        List<UserRegistration> registrations = new ArrayList<>(group.size());
+        for (PendingSignUp signUp : group) {
+            waitTimer.record(start - signUp.enqueuedAt, TimeUnit.NANOSECONDS);
+            registrations.add(signUp.registration);
+        }
+        batchSizeSummary.record(group.size());
+        try {
+            userBatchWriter.write(registrations);
+        } catch (RuntimeException e) {
+            log.warn("Group of {} sign-ups could not be stored", group.size(), e);
+            group.forEach(signUp -> signUp.registration.setFailure(e));
+        }
+        for (PendingSignUp signUp : group) {
+            try {
+                completer.execute(signUp::complete);
+            } catch (RejectedExecutionException e) {
+                // the writer outlived the shutdown
+                signUp.complete();
+            }
+        }
+    }
+
+    private static class PendingSignUp {
+        private final UserRegistration registration;
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        private PendingSignUp(User user) {
+            this.registration = new UserRegistration(user);
+        }
+
+        private void complete() {
+            if (registration.isStored()) {
+                future.complete(registration.getUser());
+            } else {
+                future.completeExceptionally(registration.getFailure());
+            }
+        }
+    }
+}
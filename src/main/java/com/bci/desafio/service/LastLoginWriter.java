@@ -0,0 +1,185 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores the last login of the users. By default every login is written right away. In write-behind mode
+ * only the latest login per user is kept in memory and all of them are written periodically with a
+ * single batched UPDATE per shard; whatever is pending is written on shutdown.
+ */
+@Component
+@Slf4j
+public class LastLoginWriter {
+
+    private static final String UPDATE_LAST_LOGIN = "UPDATE users SET last_login = ? WHERE id = ?";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final UserShards userShards;
+    private final boolean writeBehind;
+    private final Duration flushInterval;
+    private final List<Map<UUID, LocalDateTime>> pending;
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+
+    public LastLoginWriter(UserRepository userRepository, JdbcTemplate jdbcTemplate, UserShards userShards,
+                           @Value("${users.last-login.write-behind.enabled:false}") boolean writeBehind,
+                           @Value("${users.last-login.write-behind.flush-interval:5s}") Duration flushInterval,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.userShards = userShards;
+        this.writeBehind = writeBehind;
+        this.flushInterval = flushInterval;
+        this.pending = new ArrayList<>(userShards.count());
+        for (int shard = 0; shard < userShards.count(); shard++) {
+            this.pending.add(new ConcurrentHashMap<>());
+        }
+
+        Gauge.builder("users.last_login.flush.interval", flushInterval, d -> writeBehind ? d.toMillis() / 1000.0 : 0)
+                .description("Configured time between two last login flushes")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("users.last_login.staleness", this, LastLoginWriter::currentStalenessSeconds)
+                .description("Age of the oldest last login not yet written to the database")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("users.last_login.pending", this, LastLoginWriter::pendingCount)
+                .description("Users whose last login is waiting to be written")
+                .register(meterRegistry);
+
+        if (writeBehind) {
+            long millis = flushInterval.toMillis();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("last-login-flush-"));
+            this.scheduler.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+            log.info("Last login write-behind enabled, flushing every {}", flushInterval);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * @param email only used to find the shard of the user
+     */
+    public void record(UUID userId, String email, LocalDateTime lastLogin) {
+        if (!writeBehind) {
+            userShards.onShardOf(email, () -> userRepository.updateLastLogin(userId, lastLogin));
+            return;
+        }
+        pending.get(userShards.shardOf(email)).merge(userId, lastLogin, LastLoginWriter::latest);
+        oldestPendingAt.compareAndSet(0, System.nanoTime());
+    }
+
+    public synchronized int flush() {
+        if (pendingCount() == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int flushed = 0;
+        for (int shard = 0; shard < pending.size(); shard++) {
+            flushed += flush(shard);
+        }
+        resetStaleness(start);
+        return flushed;
+    }
+
+    /**
+     * Whatever is still pending was recorded after its shard was drained, so after {@code start}. A login recorded
+     * while the clock is being cleared may have found it still set and skipped it, hence the second look.
+     */
+    private void resetStaleness(long start) {
+        if (pendingCount() > 0) {
+            oldestPendingAt.set(start);
+            return;
+        }
+        oldestPendingAt.set(0);
+        if (pendingCount() > 0) {
+            oldestPendingAt.compareAndSet(0, start);
+        }
+    }
+
+    private int flush(int shard) {
+        Map<UUID, LocalDateTime> shardPending = pending.get(shard);
+        if (shardPending.isEmpty()) {
+            return 0;
+        }
+        List<UUID> ids = new ArrayList<>(shardPending.size());
+        List<Object[]> rows = new ArrayList<>(shardPending.size());
+        for (UUID id : shardPending.keySet()) {
+            LocalDateTime lastLogin = shardPending.remove(id);
+            if (lastLogin != null) {
+                ids.add(id);
+                rows.add(new Object[]{Timestamp.valueOf(lastLogin), id});
+            }
+        }
+        try {
+            userShards.onShard(shard, () -> jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, rows));
+        } catch (RuntimeException e) {
+            for (int i = 0; i < ids.size(); i++) {
+                shardPending.merge(ids.get(i), ((Timestamp) rows.get(i)[0]).toLocalDateTime(), LastLoginWriter::latest);
+            }
+            throw e;
+        }
+        return rows.size();
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            int flushed = flush();
+            log.info("Flushed {} pending last logins on shutdown", flushed);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush the pending last logins, retrying in {}", flushInterval, e);
+        }
+    }
+
+    private int pendingCount() {
+        int count = 0;
+        for (Map<UUID, LocalDateTime> shardPending : pending) {
+            count += shardPending.size();
+        }
+        return count;
+    }
+
+    private double currentStalenessSeconds() {
+        long since = oldestPendingAt.get();
+        return since == 0 ? 0 : (System.nanoTime() - since) / 1_000_000_000.0;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.exceptions.SignUpRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the steps of a sign-up that follow the password hashing: storing the user and signing its token. They
+ * wait on the database, so they get their own pool and the hashing threads are free for the next password as
+ * soon as a hash is done. When the queue is full the sign-up is rejected with a {@link SignUpRejectedException}.
+ */
+@Component
+@Slf4j
+public class SignUpExecutor implements Executor {
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+
+    public SignUpExecutor(@Value("${users.sign-up.executor.threads:8}") int threads,
+                          @Value("${users.sign-up.executor.queue-capacity:256}") int queueCapacity,
+                          MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("sign-up-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejectedCounter = Counter.builder("users.signup.executor.rejected")
+                .description("Sign-ups rejected because the queue of users to store was full")
+                .register(meterRegistry);
+        Gauge.builder("users.signup.executor.queue.depth", executor, e -> e.getQueue().size())
+                .description("Hashed sign-ups waiting to be stored")
+                .register(meterRegistry);
+        Gauge.builder("users.signup.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Sign-ups being stored right now")
+                .register(meterRegistry);
+        log.info("Sign-up pool started with {} threads and a queue of {}", threads, queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            executor.execute(command);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new SignUpRejectedException("The server is busy storing other users, please try again later");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
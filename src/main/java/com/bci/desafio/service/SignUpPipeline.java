@@ -0,0 +1,134 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.exceptions.ConstraintsException;
+import com.bci.desafio.exceptions.UserAlreadyExistException;
+import com.bci.desafio.repository.UserRepository;
+import com.bci.desafio.validation.PasswordPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Checks a sign-up cheapest first: syntax, password policy, duplicate email. Each stage is timed and the
+ * first failing stage stops the pipeline, so rejected sign-ups never reach the password hashing.
+ */
+@Component
+public class SignUpPipeline {
+
+    public static final String SYNTAX = "syntax";
+    public static final String PASSWORD_POLICY = "password-policy";
+    public static final String DUPLICATE_EMAIL = "duplicate-email";
+    public static final String PERSIST = "persist";
+
+    private final Validator validator;
+    private final PasswordPolicy passwordPolicy;
+    private final EmailExistenceIndex emailExistenceIndex;
+    private final UserRepository userRepository;
+    /**
+     * The users.signup.stage timer of each stage, by outcome, registered once.
+     */
+    private final Map<String, Timer> passedTimers = new HashMap<>();
+    private final Map<String, Timer> rejectedTimers = new HashMap<>();
+
+    public SignUpPipeline(Validator validator, PasswordPolicy passwordPolicy, EmailExistenceIndex emailExistenceIndex,
+                          UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.validator = validator;
+        this.passwordPolicy = passwordPolicy;
+        this.emailExistenceIndex = emailExistenceIndex;
+        this.userRepository = userRepository;
+        for (String stage : Arrays.asList(SYNTAX, PASSWORD_POLICY, DUPLICATE_EMAIL, PERSIST)) {
+            passedTimers.put(stage, stageTimer(stage, "passed", meterRegistry));
+            rejectedTimers.put(stage, stageTimer(stage, "rejected", meterRegistry));
+        }
+    }
+
+    public void verify(UserDTO userDTO) {
+        List<String> errors = timed(SYNTAX, () -> syntaxErrors(userDTO));
+        if (!errors.isEmpty()) {
+            throw new ConstraintsException(errors);
+        }
+        errors = timed(PASSWORD_POLICY, () -> passwordPolicy.validate(userDTO.getPassword()));
+        if (!errors.isEmpty()) {
+            throw new ConstraintsException(errors);
+        }
+        if (timed(DUPLICATE_EMAIL, () -> isRegistered(userDTO.getEmail()))) {
+            throw new UserAlreadyExistException("There is already a user with the email " + userDTO.getEmail());
+        }
+    }
+
+    public <T> T timed(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        boolean passed = false;
+        try {
+            T result = work.get();
+            passed = !isRejection(result);
+            return result;
+        } finally {
+            record(stage, passed, start);
+        }
+    }
+
+    /**
+     * Like {@link #timed}, for a stage that ends when the future it returns completes.
+     */
+    public <T> CompletableFuture<T> timedAsync(String stage, Supplier<CompletableFuture<T>> work) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = work.get();
+        } catch (RuntimeException e) {
+            record(stage, false, start);
+            throw e;
+        }
+        return result.whenComplete((value, failure) -> record(stage, failure == null, start));
+    }
+
+    private void record(String stage, boolean passed, long start) {
+        Timer timer = (passed ? passedTimers : rejectedTimers).get(stage);
+        if (timer == null) {
+            throw new IllegalArgumentException("Unknown sign-up stage " + stage);
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer stageTimer(String stage, String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("users.signup.stage")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private List<String> syntaxErrors(UserDTO userDTO) {
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
+        if (violations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> errors = new ArrayList<>(violations.size());
+        for (ConstraintViolation<UserDTO> violation : violations) {
+            errors.add(violation.getPropertyPath() + " : " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    private boolean isRegistered(String email) {
+        return emailExistenceIndex.mightExist(email) && userRepository.existsByEmail(email);
+    }
+
+    private static boolean isRejection(Object result) {
+        return Boolean.TRUE.equals(result) || (result instanceof List && !((List<?>) result).isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.datasource.ReadWriteRoutingDataSource;
+import com.bci.desafio.datasource.RecentWrites;
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.exceptions.UserAlreadyExistException;
+import com.bci.desafio.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stores many registrations in a single transaction per shard, so Hibernate can send the inserts as JDBC batches.
+ * If the batch breaks a constraint, each registration is retried in its own transaction so only the
+ * offending ones fail. Any other failure is given to every registration of the batch.
+ */
+@Component
+@Slf4j
+public class UserBatchWriter {
+
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final EmailExistenceIndex emailExistenceIndex;
+    private final RecentWrites recentWrites;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserBatchWriter(UserRepository userRepository, UserShards userShards, EmailExistenceIndex emailExistenceIndex,
+                           RecentWrites recentWrites, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userShards = userShards;
+        this.emailExistenceIndex = emailExistenceIndex;
+        this.recentWrites = recentWrites;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void write(List<UserRegistration> registrations) {
+        Map<Integer, List<UserRegistration>> byShard = new TreeMap<>();
+        for (UserRegistration registration : registrations) {
+            byShard.computeIfAbsent(userShards.shardOf(registration.getUser().getEmail()), shard -> new ArrayList<>())
+                    .add(registration);
+        }
+        byShard.forEach((shard, shardRegistrations) -> userShards.runOnShard(shard, () -> writeShard(shardRegistrations)));
+    }
+
+    private void writeShard(List<UserRegistration> registrations) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(registrations));
+            registrations.forEach(r -> stored(r.getUser().getEmail()));
+        } catch (DataIntegrityViolationException e) {
+            log.info("Batch of {} users broke a constraint, storing them one by one", registrations.size());
+            registrations.forEach(this::writeOne);
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} users could not be stored", registrations.size(), e);
+            for (UserRegistration registration : registrations) {
+                resetIds(registration);
+                registration.setFailure(e);
+            }
+        }
+    }
+
+    private void writeOne(UserRegistration registration) {
+        resetIds(registration);
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(Collections.singletonList(registration)));
+            stored(registration.getUser().getEmail());
+        } catch (DataIntegrityViolationException e) {
+            resetIds(registration);
+            String email = registration.getUser().getEmail();
+            registration.setFailure(ReadWriteRoutingDataSource.onPrimary(() -> userRepository.existsByEmail(email))
+                    ? new UserAlreadyExistException("There is already a user with the email " + email)
+                    : e);
+        } catch (RuntimeException e) {
+            resetIds(registration);
+            registration.setFailure(e);
+        }
+    }
+
+    private void persist(List<UserRegistration> registrations) {
+        for (UserRegistration registration : registrations) {
+            userRepository.save(registration.getUser());
+        }
+        userRepository.flush();
+    }
+
+    private void stored(String email) {
+        emailExistenceIndex.add(email);
+        recentWrites.record(email);
+    }
+
+    private static void resetIds(UserRegistration registration) {
+        registration.getUser().setId(null);
+    }
+}
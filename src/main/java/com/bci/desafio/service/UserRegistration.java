@@ -0,0 +1,23 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.domain.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A user waiting to be stored by {@link UserBatchWriter}, together with the outcome of the write.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserRegistration {
+
+    private final User user;
+
+    @Setter
+    private RuntimeException failure;
+
+    public boolean isStored() {
+        return failure == null && user.getId() != null;
+    }
+}
@@ -4,8 +4,12 @@ import com.bci.desafio.dto.LoginResponseDTO;
 import com.bci.desafio.dto.UserDTO;
 import com.bci.desafio.dto.UserResponseDTO;
 
+import java.util.concurrent.CompletableFuture;
+
 
 public interface UserService {
-    UserResponseDTO userRegister(UserDTO userDTO);
+    CompletableFuture<UserResponseDTO> userRegister(UserDTO userDTO);
     LoginResponseDTO login(String token);
+    void logoutAll(String email);
+    void deactivate(String email);
 }
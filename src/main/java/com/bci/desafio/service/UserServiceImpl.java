@@ -1,31 +1,31 @@
 package com.bci.desafio.service;
 
-import com.bci.desafio.domain.Phone;
+import com.bci.desafio.datasource.ReadWriteRoutingDataSource;
+import com.bci.desafio.datasource.RecentWrites;
 import com.bci.desafio.domain.User;
 import com.bci.desafio.dto.LoginResponseDTO;
 import com.bci.desafio.dto.UserDTO;
 import com.bci.desafio.dto.UserResponseDTO;
-import com.bci.desafio.exceptions.ConstraintsException;
 import com.bci.desafio.exceptions.UserAlreadyExistException;
 import com.bci.desafio.mapper.UserMapper;
-import com.bci.desafio.repository.PhoneRepository;
+import com.bci.desafio.monitoring.RequestTimings;
 import com.bci.desafio.repository.UserRepository;
-import com.bci.desafio.security.service.UserDetailsServiceImpl;
+import com.bci.desafio.security.service.CachingAuthenticationProvider;
+import com.bci.desafio.security.service.PasswordHashingService;
+import com.bci.desafio.security.service.TokenEpochs;
+import com.bci.desafio.security.service.UserDetailsCache;
 import com.bci.desafio.security.utils.JWTUtils;
-import com.bci.desafio.utils.Constants;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @AllArgsConstructor
@@ -33,79 +33,113 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService{
 
     private final UserRepository userRepository;
-    private final PhoneRepository phoneRepository;
-    private final UserDetailsServiceImpl userDetailsService;
     private final JWTUtils jwtUtils;
     private final UserMapper userMapper;
+    private final PasswordHashingService passwordHashingService;
+    private final SignUpPipeline signUpPipeline;
+    private final EmailExistenceIndex emailExistenceIndex;
+    private final LastLoginWriter lastLoginWriter;
+    private final TokenEpochs tokenEpochs;
+    private final UserDetailsCache userDetailsCache;
+    private final CachingAuthenticationProvider basicAuthProvider;
+    private final RecentWrites recentWrites;
+    private final GroupCommitWriter groupCommitWriter;
+    private final SignUpExecutor signUpExecutor;
 
-    public UserResponseDTO userRegister(UserDTO userDTO) {
+    public CompletableFuture<UserResponseDTO> userRegister(UserDTO userDTO) {
         log.info("Registering user {}", userDTO);
-        UserResponseDTO response = new UserResponseDTO();
-        checkPassword(userDTO.getPassword());
-        User user = saveUser(userDTO);
-        log.info("User registered: {}", user);
-        response.setUser(user);
-        response.setToken(createToken(user));
-        return response;
+        long start = RequestTimings.start();
+        signUpPipeline.verify(userDTO);
+        RequestTimings.stop("checks", start);
+        RequestTimings timings = RequestTimings.current();
+        long hashingStart = RequestTimings.start();
+        return passwordHashingService.encode(userDTO.getPassword())
+                .thenComposeAsync(encodedPassword -> {
+                    RequestTimings.stop(timings, "hashing", hashingStart);
+                    long saveStart = RequestTimings.start(timings);
+                    return signUpPipeline.timedAsync(SignUpPipeline.PERSIST, () -> saveUser(userDTO, encodedPassword))
+                            .thenApply(user -> {
+                                RequestTimings.stop(timings, "save", saveStart);
+                                return user;
+                            });
+                }, signUpExecutor)
+                .thenApplyAsync(user -> {
+                    log.info("User registered: {}", user);
+                    long tokenStart = RequestTimings.start(timings);
+                    String token = createToken(user);
+                    RequestTimings.stop(timings, "token-sign", tokenStart);
+                    return new UserResponseDTO(user, token);
+                }, signUpExecutor);
     }
 
-    private User saveUser(UserDTO userDTO) {
-        User user = userMapper.toUser(userDTO);
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new UserAlreadyExistException("There is already a user with the email " + user.getEmail());
+    /**
+     * Stores the user right away, or with other concurrent sign-ups when the group commit is enabled.
+     */
+    private CompletableFuture<User> saveUser(UserDTO userDTO, String encodedPassword) {
+        User user = userMapper.toUser(userDTO, encodedPassword);
+        if (groupCommitWriter.isEnabled()) {
+            return groupCommitWriter.submit(user);
         }
-        List<Phone> phones = userDTO.getPhones().stream()
-                .map(p -> userMapper.toPhone(p, user))
-                        .collect(Collectors.toList());
-        User saveUser = userRepository.save(user);
-        phoneRepository.saveAll(phones);
-        return saveUser;
-    }
-
-    private void checkPassword(String password) {
-        if (!checkCapitalsAmount(password)) {
-            throw new ConstraintsException("Password must have a capital letter");
-        }
-        if (!checkNumbersAmount(password)) {
-            throw new ConstraintsException("Password must have two numbers");
-        }
-    }
-
-    private boolean checkCapitalsAmount(String password) {
-        Matcher matcher = evaluateRegex(password, Constants.CAPITAL_REGEX);
-        int count = 0;
-        while (matcher.find()) {
-            count++;
+        User saveUser;
+        try {
+            saveUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (ReadWriteRoutingDataSource.onPrimary(() -> userRepository.existsByEmail(user.getEmail()))) {
+                throw userAlreadyExists(user.getEmail());
+            }
+            throw e;
         }
-        return count == 1;
+        emailExistenceIndex.add(saveUser.getEmail());
+        recentWrites.record(saveUser.getEmail());
+        return CompletableFuture.completedFuture(saveUser);
     }
 
-    private boolean checkNumbersAmount(String password) {
-        Matcher matcher = evaluateRegex(password, Constants.NUMBER_REGEX);
-        int count = 0;
-        while (matcher.find()) {
-            count++;
-        }
-        return count == 2;
-    }
-    private Matcher evaluateRegex(String content, String regex) {
-        Pattern pattern = Pattern.compile(regex);
-        return pattern.matcher(content);
+    private UserAlreadyExistException userAlreadyExists(String email) {
+        return new UserAlreadyExistException("There is already a user with the email " + email);
     }
 
     public LoginResponseDTO login(String token) {
+        long start = RequestTimings.start();
         String username = jwtUtils.getUsername(token);
-        User user = userRepository.findByEmail(username)
+        RequestTimings.stop("token-claims", start);
+        start = RequestTimings.start();
+        User user = userRepository.findWithPhonesByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
-        List<Phone> phones = phoneRepository.findByUser(user);
+        RequestTimings.stop("user-lookup", start);
+        start = RequestTimings.start();
         String newToken = createToken(user);
+        RequestTimings.stop("token-sign", start);
         user.setLastLogin(LocalDateTime.now());
-        return userMapper.createLoginResponse(userRepository.save(user), phones, newToken);
+        start = RequestTimings.start();
+        lastLoginWriter.record(user.getId(), user.getEmail(), user.getLastLogin());
+        RequestTimings.stop("last-login", start);
+        return userMapper.createLoginResponse(user, user.getPhones(), newToken);
+    }
+
+    @Transactional
+    public void logoutAll(String email) {
+        userRepository.advanceTokenEpoch(email);
+        revokeTokens(email);
+    }
+
+    @Transactional
+    public void deactivate(String email) {
+        userRepository.deactivate(email);
+        revokeTokens(email);
+        userDetailsCache.invalidate(email);
+    }
+
+    private void revokeTokens(String email) {
+        int epoch = userRepository.findTokenEpochByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
+        tokenEpochs.advance(email, epoch);
+        recentWrites.record(email);
+        basicAuthProvider.invalidate(email);
+        log.info("Tokens of {} revoked, epoch is now {}", email, epoch);
     }
 
     private String createToken(User user) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-        return jwtUtils.generateToken(userDetails);
+        return jwtUtils.generateToken(user);
     }
 
 }
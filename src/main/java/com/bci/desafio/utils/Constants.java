@@ -2,6 +2,4 @@ package com.bci.desafio.utils;
 
 public class Constants {
     public static final String EMAIL_REGEX = "\\b^[a-zA-Z0-9\\_\\.\\-]+\\b@\\b\\w+(\\.\\w+)+$";
-    public static final String CAPITAL_REGEX = "[A-Z]{1}";
-    public static final String NUMBER_REGEX = "[0-9]{1}";
 }
@@ -0,0 +1,7 @@
+package com.bci.desafio.validation;
+
+/**
+ * Validation group for the password policy, checked only after the cheaper syntactic constraints pass.
+ */
+public interface PasswordChecks {
+}
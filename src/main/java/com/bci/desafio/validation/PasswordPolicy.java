@@ -0,0 +1,61 @@
+package com.bci.desafio.validation;
+
+import com.bci.desafio.validation.PasswordPolicyProperties.Rule;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks every configured rule in a single pass over the password and reports all the rules it breaks.
+ * A valid password does not allocate anything. Letters and digits of any alphabet count as such, so an
+ * accented letter is a lowercase or capital letter, not a special character.
+ */
+@Component
+@AllArgsConstructor
+public class PasswordPolicy {
+
+    private final PasswordPolicyProperties properties;
+
+    public List<String> validate(CharSequence password) {
+        int capitals = 0;
+        int lowercase = 0;
+        int digits = 0;
+        int special = 0;
+        int length = password.length();
+        for (int i = 0; i < length; ) {
+            int c = Character.codePointAt(password, i);
+            i += Character.charCount(c);
+            if (Character.isUpperCase(c)) {
+                capitals++;
+            } else if (Character.isLowerCase(c)) {
+                lowercase++;
+            } else if (Character.isDigit(c)) {
+                digits++;
+            } else {
+                special++;
+            }
+        }
+
+        List<String> violations = Collections.emptyList();
+        violations = check(properties.getLength(), length, violations);
+        violations = check(properties.getCapitals(), capitals, violations);
+        violations = check(properties.getDigits(), digits, violations);
+        violations = check(properties.getLowercase(), lowercase, violations);
+        violations = check(properties.getSpecial(), special, violations);
+        return violations;
+    }
+
+    private static List<String> check(Rule rule, int count, List<String> violations) {
+        if (rule == null || rule.accepts(count)) {
+            return violations;
+        }
+        if (violations.isEmpty()) {
+            violations = new ArrayList<>(4);
+        }
+        violations.add(rule.getMessage());
+        return violations;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bci.desafio.validation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.password-policy")
+public class PasswordPolicyProperties {
+
+    private Rule length = new Rule(null, 8, 12, "The password must be between 8 and 12 characters");
+    private Rule capitals = new Rule(1, null, null, "Password must have a capital letter");
+    private Rule digits = new Rule(2, null, null, "Password must have two numbers");
+    private Rule lowercase = new Rule(null, null, null, "Password does not have the required amount of lowercase letters");
+    private Rule special = new Rule(null, null, null, "Password does not have the required amount of special characters");
+
+    /**
+     * Bounds on how many characters of a class a password may have. Unset bounds are not checked.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rule {
+        private Integer exact;
+        private Integer min;
+        private Integer max;
+        private String message;
+
+        public boolean accepts(int count) {
+            return (exact == null || count == exact)
+                    && (min == null || count >= min)
+                    && (max == null || count <= max);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bci.desafio.validation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import java.util.List;
+
+public class PasswordPolicyValidator implements ConstraintValidator<ValidPassword, String> {
+
+    private final PasswordPolicy passwordPolicy;
+
+    @Autowired
+    public PasswordPolicyValidator(PasswordPolicy passwordPolicy) {
+        this.passwordPolicy = passwordPolicy;
+    }
+
+    @Override
+    public boolean isValid(String password, ConstraintValidatorContext context) {
+        if (password == null) {
+            return true;
+        }
+        List<String> violations = passwordPolicy.validate(password);
+        if (violations.isEmpty()) {
+            return true;
+        }
+        context.disableDefaultConstraintViolation();
+        for (String violation : violations) {
+            context.buildConstraintViolationWithTemplate(escape(violation)).addConstraintViolation();
+        }
+        return false;
+    }
+
+    private static String escape(String message) {
+        return message.replace("\\", "\\\\").replace("{", "\\{").replace("}", "\\}").replace("$", "\\$");
+    }
+}
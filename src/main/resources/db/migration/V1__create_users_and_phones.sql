@@ -0,0 +1,29 @@
+create table users (
+    id          uuid         not null,
+    name        varchar(255),
+    email       varchar(255),
+    password    varchar(255),
+    create_at   timestamp,
+    last_login  timestamp,
+    is_active   boolean      not null,
+    role        varchar(255),
+    token_epoch integer      default 0 not null,
+    constraint pk_users primary key (id)
+);
+
+-- findByEmail, existsByEmail and the login query look users up by email
+create unique index ux_users_email on users (email);
+
+create table phones (
+    id           uuid not null,
+    number       bigint,
+    city_code    integer,
+    country_code varchar(255),
+    user_id      uuid,
+    constraint pk_phones primary key (id)
+);
+
+-- findByUser and the login join read the phones of one user
+create index ix_phones_user_id on phones (user_id);
+
+alter table phones add constraint fk_phones_user foreign key (user_id) references users (id);
@@ -0,0 +1,18 @@
+-- Phones become an ordered value collection of the user, keyed by the user and the position of the phone
+create table user_phones (
+    user_id      uuid    not null,
+    phone_index  integer not null,
+    number       bigint,
+    city_code    integer,
+    country_code varchar(255),
+    constraint pk_user_phones primary key (user_id, phone_index)
+);
+
+alter table user_phones add constraint fk_user_phones_user foreign key (user_id) references users (id);
+
+insert into user_phones (user_id, phone_index, number, city_code, country_code)
+select user_id, row_number() over (partition by user_id order by id) - 1, number, city_code, country_code
+from phones
+where user_id is not null;
+
+drop table phones;
@@ -0,0 +1,66 @@
+package com.bci.desafio.config;
+
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Security configuration tests")
+@SpringBootTest
+@AutoConfigureMockMvc
+class WebSecurityConfigTest {
+
+    private static final String EMAIL = "basic_auth@correo.com";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("HTTP Basic goes through the credentials cache and checks the password once")
+    void basicAuthenticationCacheTest() throws Exception {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        userDTO.setEmail(EMAIL);
+        userService.userRegister(userDTO).join();
+        double hitsBefore = cacheHits();
+        long matchesBefore = passwordMatches();
+
+        mvc.perform(get("/actuator/health").with(httpBasic(EMAIL, userDTO.getPassword())))
+                .andExpect(status().isOk());
+        mvc.perform(get("/actuator/health").with(httpBasic(EMAIL, userDTO.getPassword())))
+                .andExpect(status().isOk());
+        mvc.perform(get("/actuator/health").with(httpBasic(EMAIL, "Otra12clave")))
+                .andExpect(status().isUnauthorized());
+
+        assertAll(
+                () -> assertEquals(1, cacheHits() - hitsBefore),
+                () -> assertEquals(1, passwordMatches() - matchesBefore)
+        );
+    }
+
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets").tag("cache", "basic-auth.credentials").tag("result", "hit")
+                .functionCounter().count();
+    }
+
+    private long passwordMatches() {
+        return meterRegistry.get("security.password.encoder").tag("operation", "matches").tag("result", "match")
+                .timer().count();
+    }
+}
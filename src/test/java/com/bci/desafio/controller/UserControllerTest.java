@@ -4,12 +4,14 @@ import com.bci.desafio.datos.Data;
 import com.bci.desafio.domain.User;
 import com.bci.desafio.dto.UserDTO;
 import com.bci.desafio.exceptions.ConstraintsException;
+import com.bci.desafio.exceptions.PasswordHashingRejectedException;
+import com.bci.desafio.exceptions.SignUpRejectedException;
 import com.bci.desafio.exceptions.UserAlreadyExistException;
-import com.bci.desafio.repository.PhoneRepository;
 import com.bci.desafio.repository.UserRepository;
 import com.bci.desafio.service.UserServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -25,10 +27,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @DisplayName("User controller tests")
@@ -39,9 +45,6 @@ class UserControllerTest {
     @Mock
     private UserServiceImpl userService;
 
-    @Mock
-    private PhoneRepository phoneRepository;
-
     @InjectMocks
     private UserController userController;
 
@@ -50,11 +53,14 @@ class UserControllerTest {
 
     private ObjectMapper mapper;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        this.meterRegistry = new SimpleMeterRegistry();
         this.mvc = MockMvcBuilders.standaloneSetup(userController)
-                .setControllerAdvice(new ExceptionHandlerController())
+                .setControllerAdvice(new ExceptionHandlerController(meterRegistry))
                 .build();
         this.mapper = new ObjectMapper();
     }
@@ -63,11 +69,14 @@ class UserControllerTest {
     @DisplayName("Sing Up")
     void singU1pTest() throws Exception {
 
-        when(userService.userRegister(any())).thenReturn(Data.createUserResponseDTO());
+        when(userService.userRegister(any())).thenReturn(CompletableFuture.completedFuture(Data.createUserResponseDTO()));
 
         UserDTO userDTO = Data.createUserDTO1().get();
-        mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
+        MvcResult result = mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(userDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
@@ -91,6 +100,66 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.timestamp").exists())
                 .andExpect(jsonPath("$.detail").value("There is already a user with the email " + userDTO.getEmail()));
 
+        assertEquals(1, meterRegistry.get("users.requests.failed")
+                .tag("uri", "/users/sing-up")
+                .tag("exception", "UserAlreadyExistException")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Sing Up - Failures of an endpoint share one counter per exception")
+    void singUpFailureCounterTest() throws Exception {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        when(userService.userRegister(any())).thenThrow(
+                new UserAlreadyExistException("There is already a user with the email " + userDTO.getEmail()),
+                new UserAlreadyExistException("There is already a user with the email " + userDTO.getEmail()),
+                new SignUpRejectedException("The server is busy storing other users, please try again later"));
+
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(userDTO)));
+        }
+
+        assertAll(
+                () -> assertEquals(2, meterRegistry.get("users.requests.failed").counters().size()),
+                () -> assertEquals(2, meterRegistry.get("users.requests.failed")
+                        .tag("uri", "/users/sing-up")
+                        .tag("exception", "UserAlreadyExistException")
+                        .counter().count()),
+                () -> assertEquals(1, meterRegistry.get("users.requests.failed")
+                        .tag("exception", "SignUpRejectedException")
+                        .counter().count())
+        );
+    }
+
+    @Test
+    @DisplayName("Sing Up - Password hashing busy")
+    void singUpHashingRejectedTest() throws Exception {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        when(userService.userRegister(any())).thenThrow(
+                new PasswordHashingRejectedException("The server is busy registering other users, please try again later"));
+
+        mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(userDTO)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.code").value(HttpStatus.SERVICE_UNAVAILABLE.value()))
+                .andExpect(jsonPath("$.detail").value("The server is busy registering other users, please try again later"));
+    }
+
+    @Test
+    @DisplayName("Sing Up - Sign-up pool busy")
+    void singUpStoreRejectedTest() throws Exception {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        when(userService.userRegister(any())).thenThrow(
+                new SignUpRejectedException("The server is busy storing other users, please try again later"));
+
+        mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(userDTO)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.code").value(HttpStatus.SERVICE_UNAVAILABLE.value()))
+                .andExpect(jsonPath("$.detail").value("The server is busy storing other users, please try again later"));
     }
 
     @Test
@@ -101,15 +170,15 @@ class UserControllerTest {
         userDTO.setPassword("nocapsgg12");
 
         when(userService.userRegister(any())).thenThrow(
-                new ConstraintsException("Password must have a capital letter"));
+                new ConstraintsException(Arrays.asList("Password must have a capital letter")));
 
         mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(userDTO)))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.code").value(HttpStatus.BAD_REQUEST.value()))
-                .andExpect(jsonPath("$.timestamp").exists())
-                .andExpect(jsonPath("$.detail").value("Password must have a capital letter"));
+                .andExpect(jsonPath("$[0].code").value(HttpStatus.BAD_REQUEST.value()))
+                .andExpect(jsonPath("$[0].timestamp").exists())
+                .andExpect(jsonPath("$[0].detail").value("Password must have a capital letter"));
 
     }
 
@@ -119,37 +188,40 @@ class UserControllerTest {
 
         UserDTO userDTO = Data.createUserDTO1().get();
 
+        userDTO.setPassword("Nonumbers");
         when(userService.userRegister(any())).thenThrow(
-                new ConstraintsException("Password must have two numbers"));
+                new ConstraintsException(Arrays.asList("Password must have two numbers")));
 
-        userDTO.setPassword("Nonumbers");
         mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(userDTO)))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.code").value(HttpStatus.BAD_REQUEST.value()))
-                .andExpect(jsonPath("$.timestamp").exists())
-                .andExpect(jsonPath("$.detail").value("Password must have two numbers"));
+                .andExpect(jsonPath("$[0].code").value(HttpStatus.BAD_REQUEST.value()))
+                .andExpect(jsonPath("$[0].timestamp").exists())
+                .andExpect(jsonPath("$[0].detail").value("Password must have two numbers"));
     }
 
     @Test
-    @DisplayName("Sing Up - MethodArgumentNotValidException 1")
+    @DisplayName("Sing Up - ConstraintException 3")
     void singUpException3Test() throws Exception {
 
         UserDTO userDTO = Data.createUserDTO1().get();
         userDTO.setPassword("Numb12");
+        when(userService.userRegister(any())).thenThrow(
+                new ConstraintsException(Arrays.asList("The password must be between 8 and 12 characters")));
+
         mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(userDTO)))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].code").value(HttpStatus.BAD_REQUEST.value()))
                 .andExpect(jsonPath("$[0].timestamp").exists())
-                .andExpect(jsonPath("$[0].detail").value("password : The password must be between 8 and 12 characters"));
+                .andExpect(jsonPath("$[0].detail").value("The password must be between 8 and 12 characters"));
 
     }
 
     @Test
-    @DisplayName("Sing Up - MethodArgumentNotValidException 2")
+    @DisplayName("Sing Up - ConstraintException 4")
     void singUpException4Test() throws Exception {
 
         UserDTO userDTO = Data.createUserDTO1().get();
@@ -159,16 +231,19 @@ class UserControllerTest {
         userDTO.getPhones().get(0).setNumber(null);
         userDTO.getPhones().get(1).setNumber(null);
         userDTO.getPhones().get(1).setCityCode(null);
+        when(userService.userRegister(any())).thenThrow(
+                new ConstraintsException(Arrays.asList("email : The email has an incorrect format", "phones[0].number : must not be null")));
+
         mvc.perform(post("/users/sing-up").contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(userDTO)))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].code").value(HttpStatus.BAD_REQUEST.value()))
                 .andExpect(jsonPath("$[0].timestamp").exists())
-                .andExpect(jsonPath("$[0].detail").exists())
+                .andExpect(jsonPath("$[0].detail").value("email : The email has an incorrect format"))
                 .andExpect(jsonPath("$[1].code").value(HttpStatus.BAD_REQUEST.value()))
                 .andExpect(jsonPath("$[1].timestamp").exists())
-                .andExpect(jsonPath("$[1].detail").exists());
+                .andExpect(jsonPath("$[1].detail").value("phones[0].number : must not be null"));
     }
 
 
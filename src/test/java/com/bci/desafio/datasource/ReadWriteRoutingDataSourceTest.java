@@ -0,0 +1,98 @@
+package com.bci.desafio.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Read/write routing tests")
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String PRIMARY = "jdbc:h2:mem:routing_primary";
+    private static final String REPLICA_1 = "jdbc:h2:mem:routing_replica_1";
+    private static final String REPLICA_2 = "jdbc:h2:mem:routing_replica_2";
+
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(h2(PRIMARY),
+                Arrays.asList(h2(REPLICA_1), h2(REPLICA_2)), ReplicaSelection.ROUND_ROBIN));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    @DisplayName("Writes and connections outside transactions use the primary")
+    void primaryTest() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(PRIMARY, url(connection));
+        }
+        assertEquals(PRIMARY, readWrite.execute(status -> currentUrl()));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions take the replicas in turn")
+    void roundRobinTest() {
+        String first = readOnly.execute(status -> currentUrl());
+        String second = readOnly.execute(status -> currentUrl());
+        String third = readOnly.execute(status -> currentUrl());
+
+        assertAll(
+                () -> assertNotEquals(PRIMARY, first),
+                () -> assertNotEquals(PRIMARY, second),
+                () -> assertNotEquals(first, second),
+                () -> assertEquals(first, third)
+        );
+    }
+
+    @Test
+    @DisplayName("Recently written users are read from the primary")
+    void readYourWritesTest() {
+        RecentWrites recentWrites = new RecentWrites(Duration.ofMinutes(1));
+        recentWrites.record("Charlie_01@correo.com");
+
+        String recent = readOnly.execute(status -> recentWrites.read("charlie_01@correo.com", this::currentUrl));
+        String other = readOnly.execute(status -> recentWrites.read("otro@correo.com", this::currentUrl));
+
+        assertAll(
+                () -> assertEquals(PRIMARY, recent),
+                () -> assertNotEquals(PRIMARY, other)
+        );
+    }
+
+    /**
+     * URL of the connection bound to the current transaction, which is opened on its first use.
+     */
+    private String currentUrl() {
+        try {
+            return url(DataSourceUtils.getConnection(dataSource));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String url(Connection connection) throws SQLException {
+        return connection.getMetaData().getURL().split(";")[0];
+    }
+
+    private static DataSource h2(String url) {
+        return new DriverManagerDataSource(url + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
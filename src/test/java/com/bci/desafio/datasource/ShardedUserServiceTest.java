@@ -0,0 +1,97 @@
+package com.bci.desafio.datasource;
+
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.dto.LoginResponseDTO;
+import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.exceptions.UserAlreadyExistException;
+import com.bci.desafio.repository.UserRepository;
+import com.bci.desafio.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("User service on three shards")
+@SpringBootTest(properties = {
+        "users.datasource.shards.count=3",
+        "users.datasource.shards.urls=" + ShardedUserServiceTest.SHARD_URL + "0;DB_CLOSE_DELAY=-1,"
+                + ShardedUserServiceTest.SHARD_URL + "1;DB_CLOSE_DELAY=-1,"
+                + ShardedUserServiceTest.SHARD_URL + "2;DB_CLOSE_DELAY=-1"
+})
+class ShardedUserServiceTest {
+
+    static final String SHARD_URL = "jdbc:h2:mem:sharded_users_";
+
+    private static final int USERS = 30;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("Sign-up, login, logout and deactivation work on the shard of each user")
+    void signUpLoginDeactivateTest() {
+        Map<String, String> tokens = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            UserDTO userDTO = Data.createUserDTO1().get();
+            userDTO.setEmail("sharded" + i + "@correo.com");
+            tokens.put(userDTO.getEmail(), userService.userRegister(userDTO).join().getToken());
+        }
+        UserDTO repeated = Data.createUserDTO1().get();
+        repeated.setEmail("sharded7@correo.com");
+
+        LoginResponseDTO login = userService.login(tokens.get("sharded3@correo.com"));
+        userService.logoutAll("sharded5@correo.com");
+        userService.deactivate("sharded9@correo.com");
+
+        assertAll(
+                () -> assertThrows(UserAlreadyExistException.class, () -> userService.userRegister(repeated)),
+                () -> assertEquals(2, login.getPhones().size()),
+                () -> assertEquals(USERS, users(0).size() + users(1).size() + users(2).size()),
+                () -> assertFalse(users(0).isEmpty() || users(1).isEmpty() || users(2).isEmpty()),
+                () -> assertUsersInTheirShard(),
+                () -> assertEquals(2 * USERS, phones(0) + phones(1) + phones(2)),
+                () -> assertEquals(1, shardOf("sharded5@correo.com")
+                        .queryForObject("select token_epoch from users where email = 'sharded5@correo.com'", Integer.class)),
+                () -> assertFalse(shardOf("sharded9@correo.com")
+                        .queryForObject("select is_active from users where email = 'sharded9@correo.com'", Boolean.class)),
+                () -> assertFalse(userRepository.findByEmail("sharded9@correo.com").get().isActive()),
+                () -> assertTrue(userRepository.findWithPhonesByEmail("sharded3@correo.com").isPresent()),
+                () -> assertThrows(IllegalStateException.class, () -> userRepository.findAll())
+        );
+    }
+
+    private void assertUsersInTheirShard() {
+        for (int shard = 0; shard < 3; shard++) {
+            for (String email : users(shard)) {
+                assertEquals(shard, UserShards.shardOf(email, 3), email);
+            }
+        }
+    }
+
+    private static JdbcTemplate shardOf(String email) {
+        return shard(UserShards.shardOf(email, 3));
+    }
+
+    private static JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(new DriverManagerDataSource(SHARD_URL + shard + ";DB_CLOSE_DELAY=-1", "sa", "password"));
+    }
+
+    private static List<String> users(int shard) {
+        return shard(shard).queryForList("select email from users", String.class);
+    }
+
+    private static int phones(int shard) {
+        return shard(shard).queryForObject("select count(*) from user_phones", Integer.class);
+    }
+}
@@ -0,0 +1,178 @@
+package com.bci.desafio.datasource;
+
+import com.bci.desafio.domain.TimeOrderedUuidGenerator;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Sharded user storage tests")
+class ShardedUserStorageTest {
+
+    private static final int USERS = 300;
+
+    private final String prefix = "jdbc:h2:mem:shard_" + UUID.randomUUID() + "_";
+    private List<DataSource> shards;
+
+    @BeforeEach
+    void setUp() {
+        shards = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            DataSource shard = new DriverManagerDataSource(prefix + i + ";DB_CLOSE_DELAY=-1", "sa", "");
+            Flyway.configure().dataSource(shard).locations("classpath:db/migration").load().migrate();
+            shards.add(shard);
+        }
+    }
+
+    @Test
+    @DisplayName("The shard of an email is stable, ignores case and spreads the users evenly")
+    void shardOfTest() {
+        int[] users = new int[3];
+        for (int i = 0; i < 3000; i++) {
+            users[UserShards.shardOf("user" + i + "@correo.com", 3)]++;
+        }
+
+        assertAll(
+                () -> assertEquals(1, UserShards.shardOf("charlie_01@correo.com", 3)),
+                () -> assertEquals(10, UserShards.shardOf("charlie_01@correo.com", 16)),
+                () -> assertEquals(0, UserShards.shardOf("charlie_01@correo.com", 1)),
+                () -> assertEquals(UserShards.shardOf("charlie_01@correo.com", 3), UserShards.shardOf("Charlie_01@Correo.com", 3)),
+                () -> assertTrue(users[0] > 900 && users[1] > 900 && users[2] > 900, () -> Arrays.toString(users))
+        );
+    }
+
+    @Test
+    @DisplayName("Users and their phones are stored in the shard of their email, which keeps the email unique")
+    void routingTest() {
+        UserShards userShards = new UserShards(3);
+        JdbcTemplate jdbc = new JdbcTemplate(new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards.subList(0, 3))));
+        for (int i = 0; i < USERS; i++) {
+            String email = "user" + i + "@correo.com";
+            userShards.onShardOf(email, () -> insert(jdbc, email));
+        }
+
+        assertAll(
+                () -> assertEquals(USERS, users(0) + users(1) + users(2)),
+                () -> assertUsersInTheirShard(3),
+                () -> assertEquals(2 * USERS, phones(0) + phones(1) + phones(2)),
+                () -> assertThrows(DuplicateKeyException.class,
+                        () -> userShards.onShardOf("user7@correo.com", () -> insert(jdbc, "user7@correo.com")))
+        );
+    }
+
+    @Test
+    @DisplayName("A transaction cannot change its shard")
+    void transactionShardTest() {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards.subList(0, 2)));
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status ->
+                ShardRoutingDataSource.onShard(0, () -> ShardRoutingDataSource.onShard(1,
+                        () -> jdbc.queryForObject("select count(*) from users", Integer.class)))));
+    }
+
+    @Test
+    @DisplayName("Repository calls that are not about an email must run on a shard chosen by the caller")
+    @SuppressWarnings("unchecked")
+    void unroutableCallTest() {
+        UserShards userShards = new UserShards(3);
+        ProxyFactory proxyFactory = new ProxyFactory(new ArrayList<>(Collections.singletonList("charlie_01@correo.com")));
+        proxyFactory.addAdvice(new ShardRoutingInterceptor(userShards));
+        List<String> repository = (List<String>) proxyFactory.getProxy();
+
+        assertAll(
+                () -> assertThrows(IllegalStateException.class, repository::size),
+                () -> assertEquals(1, userShards.onShard(2, repository::size)),
+                () -> assertTrue(repository.contains("charlie_01@correo.com"))
+        );
+    }
+
+    @Test
+    @DisplayName("After adding a shard only the users of the new shard are moved, with their phones")
+    void addShardTest() {
+        storeIn(2);
+
+        long moved = new ShardRebalancer(shards.subList(0, 3), 50).rebalance(Collections.emptyList());
+
+        assertAll(
+                () -> assertEquals(users(2), moved),
+                () -> assertTrue(moved > USERS / 4 && moved < USERS / 2, () -> "moved " + moved),
+                () -> assertEquals(USERS, users(0) + users(1) + users(2)),
+                () -> assertEquals(2 * USERS, phones(0) + phones(1) + phones(2)),
+                () -> assertUsersInTheirShard(3),
+                () -> assertEquals(0, new ShardRebalancer(shards.subList(0, 3), 50).rebalance(Collections.emptyList()))
+        );
+    }
+
+    @Test
+    @DisplayName("A retired shard is emptied into the remaining ones")
+    void retireShardTest() {
+        storeIn(4);
+        int retired = users(3);
+
+        long moved = new ShardRebalancer(shards.subList(0, 3), 50).rebalance(Collections.singletonList(shards.get(3)));
+
+        assertAll(
+                () -> assertEquals(retired, moved),
+                () -> assertEquals(0, users(3)),
+                () -> assertEquals(0, phones(3)),
+                () -> assertEquals(USERS, users(0) + users(1) + users(2)),
+                () -> assertEquals(2 * USERS, phones(0) + phones(1) + phones(2)),
+                () -> assertUsersInTheirShard(3)
+        );
+    }
+
+    /**
+     * Stores the users in the first {@code count} shards, where they belong with that many shards.
+     */
+    private void storeIn(int count) {
+        for (int i = 0; i < USERS; i++) {
+            String email = "user" + i + "@correo.com";
+            insert(new JdbcTemplate(shards.get(UserShards.shardOf(email, count))), email);
+        }
+    }
+
+    private static int insert(JdbcTemplate jdbc, String email) {
+        UUID id = TimeOrderedUuidGenerator.next();
+        jdbc.update("insert into users (id, name, email, password, create_at, last_login, is_active, role, token_epoch) "
+                + "values (?, 'Charlie', ?, '$2a$10$hash', current_timestamp, current_timestamp, true, 'USER', 0)", id, email);
+        for (int i = 0; i < 2; i++) {
+            jdbc.update("insert into user_phones (user_id, phone_index, number, city_code, country_code) "
+                    + "values (?, ?, 345790145, 261, '+54')", id, i);
+        }
+        return 1;
+    }
+
+    private void assertUsersInTheirShard(int count) {
+        for (int shard = 0; shard < count; shard++) {
+            for (String email : new JdbcTemplate(shards.get(shard)).queryForList("select email from users", String.class)) {
+                assertEquals(shard, UserShards.shardOf(email, count), email);
+            }
+        }
+    }
+
+    private int users(int shard) {
+        return new JdbcTemplate(shards.get(shard)).queryForObject("select count(*) from users", Integer.class);
+    }
+
+    private int phones(int shard) {
+        return new JdbcTemplate(shards.get(shard)).queryForObject("select count(*) from user_phones", Integer.class);
+    }
+}
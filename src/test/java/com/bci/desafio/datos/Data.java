@@ -6,7 +6,14 @@ import com.bci.desafio.dto.LoginResponseDTO;
 import com.bci.desafio.dto.PhoneDTO;
 import com.bci.desafio.dto.UserDTO;
 import com.bci.desafio.dto.UserResponseDTO;
-
+import com.bci.desafio.validation.PasswordPolicy;
+import com.bci.desafio.validation.PasswordPolicyValidator;
+
+import javax.validation.Configuration;
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorFactory;
+import javax.validation.Validation;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -27,15 +34,13 @@ public class Data {
         return Optional.of(user);
     }
 
-    public static List<Phone> createPhoneList(User user) {
+    public static List<Phone> createPhoneList() {
         Phone phone1 = new Phone();
-        phone1.setUser(user);
         phone1.setNumber(345790145L);
         phone1.setCityCode(261);
         phone1.setCountryCode("+54");
 
         Phone phone2 = new Phone();
-        phone2.setUser(user);
         phone2.setNumber(155789456L);
         phone2.setCityCode(262);
         phone2.setCountryCode("+54");
@@ -101,5 +106,27 @@ public class Data {
                 .phones(createPhoneDTOList())
                 .build();
     }
-}
 
+    /**
+     * A validator whose password constraint checks the given policy, as the Spring validator does.
+     */
+    public static Validator createValidator(PasswordPolicy passwordPolicy) {
+        Configuration<?> configuration = Validation.byDefaultProvider().configure();
+        ConstraintValidatorFactory defaults = configuration.getDefaultConstraintValidatorFactory();
+        configuration.constraintValidatorFactory(new ConstraintValidatorFactory() {
+            @Override
+            public <T extends ConstraintValidator<?, ?>> T getInstance(Class<T> key) {
+                if (key == PasswordPolicyValidator.class) {
+                    return key.cast(new PasswordPolicyValidator(passwordPolicy));
+                }
+                return defaults.getInstance(key);
+            }
+
+            @Override
+            public void releaseInstance(ConstraintValidator<?, ?> instance) {
+                defaults.releaseInstance(instance);
+            }
+        });
+        return configuration.buildValidatorFactory().getValidator();
+    }
+}
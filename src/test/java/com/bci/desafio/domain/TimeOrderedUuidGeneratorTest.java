@@ -0,0 +1,36 @@
+package com.bci.desafio.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Time ordered UUID tests")
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    @DisplayName("Generated ids are version 7 and carry their timestamp")
+    void versionTest() {
+        long now = System.currentTimeMillis();
+        UUID id = TimeOrderedUuidGenerator.next(now);
+
+        assertAll(
+                () -> assertEquals(7, id.version()),
+                () -> assertEquals(2, id.variant()),
+                () -> assertEquals(now, id.getMostSignificantBits() >>> 16)
+        );
+    }
+
+    @Test
+    @DisplayName("Ids of later milliseconds sort after earlier ones")
+    void orderTest() {
+        long now = System.currentTimeMillis();
+        UUID earlier = TimeOrderedUuidGenerator.next(now);
+        UUID later = TimeOrderedUuidGenerator.next(now + 1);
+
+        assertTrue(earlier.compareTo(later) < 0);
+        assertNotEquals(TimeOrderedUuidGenerator.next(now), TimeOrderedUuidGenerator.next(now));
+    }
+}
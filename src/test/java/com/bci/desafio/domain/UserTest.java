@@ -4,7 +4,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -29,13 +29,11 @@ class UserTest {
         user.setActive(true);
 
         Phone phone1 = new Phone();
-        phone1.setId(UUID.randomUUID());
-        phone1.setUser(user);
         phone1.setNumber(345790145L);
         phone1.setCityCode(261);
         phone1.setCountryCode("+54");
 
-        //user.setPhones(Arrays.asList(phone1, phone2));
+        user.setPhones(Collections.singletonList(phone1));
 
         user.init();
 
@@ -51,8 +49,7 @@ class UserTest {
                 () -> assertEquals(345790145L, phone1.getNumber()),
                 () -> assertEquals(261, phone1.getCityCode()),
                 () -> assertEquals("+54", phone1.getCountryCode()),
-                () -> assertEquals(user, phone1.getUser()),
-                () -> assertNotNull(phone1.getId())
+                () -> assertEquals(phone1, user.getPhones().get(0))
         );
 
     }
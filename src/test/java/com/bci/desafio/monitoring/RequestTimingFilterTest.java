@@ -0,0 +1,55 @@
+package com.bci.desafio.monitoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Request timing tests")
+class RequestTimingFilterTest {
+
+    @Test
+    @DisplayName("Stages are reported in the Server-Timing header")
+    void serverTimingHeaderTest() throws Exception {
+        RequestTimingFilter filter = new RequestTimingFilter(true, Duration.ofMillis(500));
+        ServerTimingResponseAdvice advice = new ServerTimingResponseAdvice(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            long start = RequestTimings.start();
+            RequestTimings.stop("token-verify", start);
+            ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+            advice.beforeBodyWrite("{}", null, null, null, new ServletServerHttpRequest(request), serverResponse);
+            serverResponse.flush();
+        });
+
+        String header = response.getHeader(ServerTimingResponseAdvice.SERVER_TIMING);
+        assertAll(
+                () -> assertNotNull(header),
+                () -> assertTrue(header.startsWith("token-verify;dur=")),
+                () -> assertTrue(header.contains("app;dur=")),
+                () -> assertNull(RequestTimings.current())
+        );
+    }
+
+    @Test
+    @DisplayName("Nothing is recorded when timing is disabled")
+    void disabledTest() throws Exception {
+        RequestTimingFilter filter = new RequestTimingFilter(false, Duration.ZERO);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/login"), response, (req, res) -> {
+            assertNull(RequestTimings.current());
+            assertEquals(0L, RequestTimings.start());
+        });
+
+        assertNull(response.getHeader(ServerTimingResponseAdvice.SERVER_TIMING));
+    }
+}
@@ -0,0 +1,113 @@
+package com.bci.desafio.monitoring.jfr;
+
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.repository.UserRepository;
+import com.bci.desafio.security.service.UserDetailsServiceImpl;
+import com.bci.desafio.security.utils.JWTUtils;
+import com.bci.desafio.security.utils.JwtCodec;
+import com.bci.desafio.security.utils.TimedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("JFR events tests")
+@ExtendWith(MockitoExtension.class)
+class JfrEventsTest {
+
+    private static final String EMAIL = "charlie_01@correo.com";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("JWT, password, user details and repository events are recorded with their outcome")
+    @SuppressWarnings("unchecked")
+    void eventsTest() throws Exception {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Data.createUser1());
+        when(userRepository.findByEmail("nadie@correo.com")).thenReturn(Optional.empty());
+        JWTUtils jwtUtils = new JWTUtils(new JwtCodec("SECRETO1234"), 60000, 100, new SimpleMeterRegistry());
+        TimedPasswordEncoder passwordEncoder = new TimedPasswordEncoder(new BCryptPasswordEncoder(4), new SimpleMeterRegistry());
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(userRepository);
+        ProxyFactory proxyFactory = new ProxyFactory(new ArrayList<>());
+        proxyFactory.addAdvice(new RepositoryEventInterceptor(List.class));
+        List<String> repository = (List<String>) proxyFactory.getProxy();
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String event : new String[]{"com.bci.desafio.Jwt", "com.bci.desafio.PasswordEncoder",
+                    "com.bci.desafio.UserDetailsLoad", "com.bci.desafio.RepositoryCall"}) {
+                recording.enable(event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            String token = jwtUtils.generateToken(User.withUsername(EMAIL).password("x").roles("USER").build());
+            jwtUtils.verify(token);
+            jwtUtils.verify(token);
+            String hash = passwordEncoder.encode("Pass12word");
+            passwordEncoder.matches("Otra12clave", hash);
+            userDetailsService.loadUserByUsername(EMAIL);
+            assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nadie@correo.com"));
+            repository.size();
+            assertThrows(IndexOutOfBoundsException.class, () -> repository.get(3));
+
+            recording.stop();
+            Path file = Files.createTempFile("desafio", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        assertAll(
+                () -> assertEquals(Arrays.asList("sign:" + EMAIL + ":signed", "verify:" + EMAIL + ":verified",
+                        "verify:" + EMAIL + ":cached"), fields(events, "com.bci.desafio.Jwt", "operation", "subject", "outcome")),
+                () -> assertEquals(Arrays.asList("encode:encoded", "matches:mismatch"),
+                        fields(events, "com.bci.desafio.PasswordEncoder", "operation", "outcome")),
+                () -> assertEquals(Arrays.asList(EMAIL + ":found", "nadie@correo.com:not-found"),
+                        fields(events, "com.bci.desafio.UserDetailsLoad", "subject", "outcome")),
+                () -> assertEquals(Arrays.asList("List:size:success", "List:get:IndexOutOfBoundsException"),
+                        fields(events, "com.bci.desafio.RepositoryCall", "repository", "method", "outcome"))
+        );
+    }
+
+    /**
+     * The given fields of the events of one type, in the order they were committed, joined with colons.
+     */
+    private static List<String> fields(List<RecordedEvent> events, String type, String... names) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(type))
+                .sorted((a, b) -> a.getEndTime().compareTo(b.getEndTime()))
+                .map(event -> {
+                    List<String> values = new ArrayList<>(names.length);
+                    for (String name : names) {
+                        values.add(event.getString(name));
+                    }
+                    return String.join(":", values);
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,141 @@
+package com.bci.desafio.repository;
+
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.domain.User;
+import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.service.UserService;
+import org.hibernate.Hibernate;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Explains the statements Hibernate actually sends, as captured by {@link CapturingStatementInspector}.
+ */
+@DisplayName("Query plans of the repository queries")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.bci.desafio.repository.QueryPlanTest$CapturingStatementInspector")
+class QueryPlanTest {
+
+    private static final String EMAIL = "query_plan@correo.com";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        if (!userRepository.existsByEmail(EMAIL)) {
+            UserDTO userDTO = Data.createUserDTO1().get();
+            userDTO.setEmail(EMAIL);
+            userService.userRegister(userDTO).join();
+        }
+        userId = userRepository.findByEmail(EMAIL).get().getId();
+        entityManagerFactory.getCache().evictAll();
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("findByEmail uses the email index")
+    void findByEmailPlanTest() {
+        String sql = statement("email=?", () -> userRepository.findByEmail(EMAIL));
+
+        assertUsesIndex(explain(sql, EMAIL), "UX_USERS_EMAIL");
+    }
+
+    @Test
+    @DisplayName("existsByEmail uses the email index")
+    void existsByEmailPlanTest() {
+        String sql = statement("email=?", () -> userRepository.existsByEmail(EMAIL));
+
+        assertUsesIndex(explain(sql, EMAIL, 1), "UX_USERS_EMAIL");
+    }
+
+    @Test
+    @DisplayName("The phones of a user are read through the primary key")
+    void phonesOfUserPlanTest() {
+        String sql = statement("from user_phones", () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).get();
+            Hibernate.initialize(user.getPhones());
+        }));
+
+        assertUsesIndex(explain(sql, userId), primaryKeyIndex("USER_PHONES"));
+    }
+
+    @Test
+    @DisplayName("The login query uses the email index and the phones primary key")
+    void findWithPhonesByEmailPlanTest() {
+        String sql = statement("join user_phones", () -> userRepository.findWithPhonesByEmail(EMAIL));
+        String plan = explain(sql, EMAIL);
+
+        assertAll(
+                () -> assertUsesIndex(plan, "UX_USERS_EMAIL"),
+                () -> assertTrue(plan.contains(primaryKeyIndex("USER_PHONES")), plan)
+        );
+    }
+
+    /**
+     * @return the first statement run by {@code action} that contains {@code fragment}
+     */
+    private static String statement(String fragment, Runnable action) {
+        action.run();
+        return CapturingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.contains(fragment))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statement with " + fragment + " in "
+                        + CapturingStatementInspector.STATEMENTS));
+    }
+
+    private String explain(String sql, Object... parameters) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+    }
+
+    private String primaryKeyIndex(String table) {
+        return jdbcTemplate.queryForObject("select index_name from information_schema.indexes "
+                + "where table_name = ? and index_type_name = 'PRIMARY KEY'", String.class, table);
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertAll(
+                () -> assertTrue(plan.contains(index), plan),
+                () -> assertFalse(plan.contains("tableScan"), plan)
+        );
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
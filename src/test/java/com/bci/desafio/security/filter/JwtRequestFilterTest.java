@@ -0,0 +1,108 @@
+package com.bci.desafio.security.filter;
+
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.repository.UserRepository;
+import com.bci.desafio.security.service.TokenEpochs;
+import com.bci.desafio.security.service.UserDetailsCache;
+import com.bci.desafio.security.service.UserDetailsServiceImpl;
+import com.bci.desafio.security.utils.JWTUtils;
+import com.bci.desafio.security.utils.JwtCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("JWT request filter tests")
+@ExtendWith(MockitoExtension.class)
+class JwtRequestFilterTest {
+
+    private static final String EMAIL = "charlie_01@correo.com";
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private JWTUtils jwtUtils;
+
+    private UserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        jwtUtils = new JWTUtils(new JwtCodec("SECRETO1234"), 60000, 100, new SimpleMeterRegistry());
+        userDetails = User.withUsername(EMAIL).password("x").roles("USER").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("In CLAIMS mode the principal comes from the token, without loading the user")
+    void claimsModeTest() throws Exception {
+        JwtRequestFilter filter = filter(AuthenticationMode.CLAIMS, Duration.ofMinutes(1));
+
+        Authentication authentication = authenticate(filter, jwtUtils.generateToken(userDetails));
+
+        assertAll(
+                () -> assertNotNull(authentication),
+                () -> assertEquals(EMAIL, authentication.getName()),
+                () -> assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER"), authentication.getAuthorities())
+        );
+        verifyNoInteractions(userDetailsService, userRepository);
+    }
+
+    @Test
+    @DisplayName("In CACHED mode the user is loaded once per TTL")
+    void cachedModeTest() throws Exception {
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(userDetails);
+        JwtRequestFilter filter = filter(AuthenticationMode.CACHED, Duration.ofMillis(100));
+        String token = jwtUtils.generateToken(userDetails);
+
+        Authentication first = authenticate(filter, token);
+        Authentication second = authenticate(filter, token);
+        verify(userDetailsService, times(1)).loadUserByUsername(EMAIL);
+        Thread.sleep(300);
+        Authentication expired = authenticate(filter, token);
+
+        assertAll(
+                () -> assertEquals(EMAIL, first.getName()),
+                () -> assertSame(first.getPrincipal(), second.getPrincipal()),
+                () -> assertEquals(EMAIL, expired.getName())
+        );
+        verify(userDetailsService, times(2)).loadUserByUsername(EMAIL);
+    }
+
+    private JwtRequestFilter filter(AuthenticationMode mode, Duration userDetailsTtl) {
+        return new JwtRequestFilter(userDetailsService, new UserDetailsCache(userDetailsService, 100, userDetailsTtl),
+                jwtUtils, new TokenEpochs(userRepository, new UserShards(1)), mode, new SimpleMeterRegistry());
+    }
+
+    private static Authentication authenticate(JwtRequestFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/login");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,76 @@
+package com.bci.desafio.security.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Basic credentials cache tests")
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    private static final String EMAIL = "charlie_01@correo.com";
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(
+                User.withUsername(EMAIL).password(encoder.encode("Pass12word")).roles("USER").build());
+        provider = new CachingAuthenticationProvider(userDetailsService, encoder, true, 100,
+                Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Verified credentials are served from the cache")
+    void cachedCredentialsTest() {
+        Authentication first = provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "Pass12word"));
+        Authentication second = provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "Pass12word"));
+
+        assertAll(
+                () -> assertTrue(second.isAuthenticated()),
+                () -> assertNull(first.getCredentials()),
+                () -> assertEquals(first.getPrincipal(), second.getPrincipal()),
+                () -> assertEquals(first.getAuthorities(), second.getAuthorities()),
+                () -> assertNull(second.getCredentials())
+        );
+        verify(userDetailsService, times(1)).loadUserByUsername(EMAIL);
+    }
+
+    @Test
+    @DisplayName("A different password is never accepted from the cache")
+    void wrongPasswordTest() {
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "Pass12word"));
+
+        assertThrows(BadCredentialsException.class,
+                () -> provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "Otra12pass")));
+        verify(userDetailsService, times(2)).loadUserByUsername(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Invalidated users are verified again")
+    void invalidateTest() {
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "Pass12word"));
+        provider.invalidate(EMAIL);
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "Pass12word"));
+
+        verify(userDetailsService, times(2)).loadUserByUsername(EMAIL);
+    }
+}
@@ -0,0 +1,88 @@
+package com.bci.desafio.security.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ES256 key ring tests")
+class EcKeyRingTest {
+
+    private EcKeyRing ring;
+
+    private JwtCodec codec;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ring = EcKeyRing.generate();
+        codec = new JwtCodec(ring, new HmacKeys("SECRETO1234"));
+    }
+
+    @Test
+    @DisplayName("ES256 tokens carry the kid and verify with the published key")
+    void signAndVerifyTest() throws Exception {
+        long now = Instant.now().getEpochSecond();
+        String token = codec.encode("charlie_01@correo.com", "ROLE_USER", now, now + 60);
+
+        Claims claims = Jwts.parser()
+                .setSigningKey(ring.verificationKey(ring.activeKeyId()))
+                .parseClaimsJws(token).getBody();
+        JsonNode jwk = new ObjectMapper().readTree(ring.getJwks()).get("keys").get(0);
+
+        assertAll(
+                () -> assertEquals("charlie_01@correo.com", codec.decode(token).getSubject()),
+                () -> assertEquals("charlie_01@correo.com", claims.getSubject()),
+                () -> assertEquals(ring.activeKeyId(), jwk.get("kid").asText()),
+                () -> assertEquals("ES256", jwk.get("alg").asText()),
+                () -> assertEquals("P-256", jwk.get("crv").asText())
+        );
+    }
+
+    @Test
+    @DisplayName("HS256 tokens stay valid and other rings are rejected")
+    void verificationKeysTest() throws Exception {
+        long now = Instant.now().getEpochSecond();
+        String hs256 = new JwtCodec("SECRETO1234").encode("charlie_01@correo.com", "ROLE_USER", now, now + 60);
+        String foreign = new JwtCodec(EcKeyRing.generate()).encode("charlie_01@correo.com", "ROLE_ADMIN", now, now + 60);
+
+        assertAll(
+                () -> assertEquals("charlie_01@correo.com", codec.decode(hs256).getSubject()),
+                () -> assertThrows(SignatureException.class, () -> codec.decode(foreign))
+        );
+    }
+
+    @Test
+    @DisplayName("A key store with several keys needs the active one to be named")
+    void activeKeyRequiredTest() throws Exception {
+        ClassPathResource keyStore = new ClassPathResource("jwt/two-keys.p12");
+        EcKeyRing named = EcKeyRing.load(keyStore, "changeit".toCharArray(), "clave-2026");
+
+        assertAll(
+                () -> assertEquals("clave-2026", named.activeKeyId()),
+                () -> assertEquals(2, new ObjectMapper().readTree(named.getJwks()).get("keys").size()),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> EcKeyRing.load(keyStore, "changeit".toCharArray(), "")),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> EcKeyRing.load(keyStore, "changeit".toCharArray(), null))
+        );
+    }
+
+    @Test
+    @DisplayName("DER and JWS signature formats convert both ways")
+    void signatureFormatTest() {
+        byte[] concat = new byte[64];
+        concat[0] = (byte) 0x80;
+        concat[63] = 1;
+
+        assertArrayEquals(concat, EcKeyRing.derToConcat(EcKeyRing.concatToDer(concat)));
+    }
+}
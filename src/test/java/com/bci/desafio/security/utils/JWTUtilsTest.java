@@ -0,0 +1,51 @@
+package com.bci.desafio.security.utils;
+
+import io.jsonwebtoken.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JWT utils tests")
+class JWTUtilsTest {
+
+    private JWTUtils jwtUtils;
+
+    private UserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JWTUtils(new JwtCodec("SECRETO1234"), 60000, 100, new SimpleMeterRegistry());
+        userDetails = User.withUsername("charlie_01@correo.com").password("x").roles("USER").build();
+    }
+
+    @Test
+    @DisplayName("Verified claims are parsed once and reused")
+    void verifyCachesClaimsTest() {
+        String token = jwtUtils.generateToken(userDetails);
+
+        VerifiedClaims first = jwtUtils.verify(token);
+        VerifiedClaims second = jwtUtils.verify(token);
+
+        assertAll(
+                () -> assertSame(first, second),
+                () -> assertEquals("charlie_01@correo.com", first.getSubject()),
+                () -> assertEquals("ROLE_USER", first.getRole()),
+                () -> assertEquals("charlie_01@correo.com", jwtUtils.getUsername(token)),
+                () -> assertTrue(jwtUtils.validateToken(token, userDetails))
+        );
+    }
+
+    @Test
+    @DisplayName("Tampered tokens are rejected")
+    void tamperedTokenTest() {
+        String token = jwtUtils.generateToken(userDetails);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(SignatureException.class, () -> jwtUtils.verify(tampered));
+    }
+}
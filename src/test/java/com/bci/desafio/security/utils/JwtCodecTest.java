@@ -0,0 +1,76 @@
+package com.bci.desafio.security.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JWT codec tests")
+class JwtCodecTest {
+
+    private static final String SECRET = "SECRETO1234";
+
+    private final JwtCodec codec = new JwtCodec(SECRET);
+
+    @Test
+    @DisplayName("Encoded tokens are decoded with the compact role")
+    void roundTripTest() {
+        long now = Instant.now().getEpochSecond();
+        VerifiedClaims claims = codec.decode(codec.encode("charlie_01@correo.com", "ROLE_USER", now, now + 60));
+
+        assertAll(
+                () -> assertEquals("charlie_01@correo.com", claims.getSubject()),
+                () -> assertEquals("ROLE_USER", claims.getRole()),
+                () -> assertEquals(now * 1000, claims.getIssuedAt().getTime()),
+                () -> assertEquals((now + 60) * 1000, claims.getExpiration().getTime())
+        );
+    }
+
+    @Test
+    @DisplayName("Tokens issued by jjwt are still accepted and jjwt accepts the new ones")
+    void wireCompatibilityTest() {
+        String legacy = Jwts.builder()
+                .claim(VerifiedClaims.ROLE_CLAIM, new SimpleGrantedAuthority("ROLE_USER"))
+                .setSubject("charlie_01@correo.com")
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .compact();
+        long now = Instant.now().getEpochSecond();
+        String compact = codec.encode("charlie_01@correo.com", "ROLE_USER", now, now + 60);
+
+        VerifiedClaims fromLegacy = codec.decode(legacy);
+        Claims fromCompact = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(compact).getBody();
+
+        assertAll(
+                () -> assertEquals("charlie_01@correo.com", fromLegacy.getSubject()),
+                () -> assertEquals("ROLE_USER", fromLegacy.getRole()),
+                () -> assertEquals("charlie_01@correo.com", fromCompact.getSubject()),
+                () -> assertEquals("ROLE_USER", fromCompact.get(VerifiedClaims.ROLE_CLAIM))
+        );
+    }
+
+    @Test
+    @DisplayName("Tampered and expired tokens are rejected")
+    void rejectedTokensTest() {
+        long now = Instant.now().getEpochSecond();
+        String token = codec.encode("charlie_01@correo.com", "ROLE_USER", now, now + 60);
+        String tampered = new JwtCodec("OTROSECRETO").encode("charlie_01@correo.com", "ROLE_ADMIN", now, now + 60);
+        String expired = codec.encode("charlie_01@correo.com", "ROLE_USER", now - 120, now - 60);
+
+        assertAll(
+                () -> assertThrows(SignatureException.class,
+                        () -> codec.decode(token.substring(0, token.lastIndexOf('.')) + tampered.substring(tampered.lastIndexOf('.')))),
+                () -> assertThrows(ExpiredJwtException.class, () -> codec.decode(expired))
+        );
+    }
+}
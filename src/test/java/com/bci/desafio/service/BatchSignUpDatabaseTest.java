@@ -0,0 +1,95 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.dto.BatchSignUpResultDTO;
+import com.bci.desafio.dto.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Batch sign-up against the database")
+@SpringBootTest
+@ActiveProfiles("statistics")
+class BatchSignUpDatabaseTest {
+
+    @Autowired
+    private BatchSignUpService batchSignUpService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Valid users are stored in one batch and duplicates get their own error")
+    void mixedBatchTest() throws Exception {
+        UserDTO existing = user("batch_existente@correo.com");
+        userService.userRegister(existing).join();
+        UserDTO first = user("batch_primero@correo.com");
+        UserDTO repeated = user("batch_primero@correo.com");
+        UserDTO second = user("batch_segundo@correo.com");
+        String body = mapper.writeValueAsString(first) + "\n"
+                + mapper.writeValueAsString(existing) + "\n"
+                + mapper.writeValueAsString(repeated) + "\n"
+                + mapper.writeValueAsString(second) + "\n";
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        batchSignUpService.register(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        BatchSignUpResultDTO[] results = new BatchSignUpResultDTO[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            results[i] = mapper.readValue(lines[i], BatchSignUpResultDTO.class);
+        }
+        assertAll(
+                () -> assertEquals(4, results.length),
+                () -> assertEquals(BatchSignUpResultDTO.CREATED, results[0].getStatus()),
+                () -> assertEquals(BatchSignUpResultDTO.REJECTED, results[1].getStatus()),
+                () -> assertEquals("There is already a user with the email batch_existente@correo.com",
+                        results[1].getErrors().get(0)),
+                () -> assertEquals(BatchSignUpResultDTO.REJECTED, results[2].getStatus()),
+                () -> assertEquals("The email is repeated in the batch", results[2].getErrors().get(0)),
+                () -> assertEquals(BatchSignUpResultDTO.CREATED, results[3].getStatus()),
+                () -> assertEquals(1, users("batch_primero@correo.com", results[0].getId())),
+                () -> assertEquals(1, users("batch_segundo@correo.com", results[3].getId())),
+                () -> assertEquals(4, jdbcTemplate.queryForObject("select count(*) from user_phones where user_id in (?, ?)",
+                        Integer.class, results[0].getId(), results[3].getId())),
+                () -> assertEquals(2, statistics.getEntityInsertCount()),
+                // the existence check of the duplicate, then one batch of users and one of phones
+                () -> assertEquals(3, statistics.getPrepareStatementCount())
+        );
+    }
+
+    private int users(String email, UUID id) {
+        return jdbcTemplate.queryForObject("select count(*) from users where email = ? and id = ?", Integer.class, email, id);
+    }
+
+    private static UserDTO user(String email) {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        userDTO.setEmail(email);
+        return userDTO;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.dto.BatchSignUpResultDTO;
+import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.mapper.EntityMapper;
+import com.bci.desafio.mapper.UserMapper;
+import com.bci.desafio.repository.UserRepository;
+import com.bci.desafio.security.service.PasswordHashingService;
+import com.bci.desafio.validation.PasswordPolicy;
+import com.bci.desafio.validation.PasswordPolicyProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Batch sign-up tests")
+@ExtendWith(MockitoExtension.class)
+class BatchSignUpServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserBatchWriter userBatchWriter;
+
+    private PasswordHashingService passwordHashingService;
+
+    private BatchSignUpService batchSignUpService;
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new ObjectMapper();
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), 2, 10, new SimpleMeterRegistry());
+        PasswordPolicy passwordPolicy = new PasswordPolicy(new PasswordPolicyProperties());
+        SignUpPipeline signUpPipeline = new SignUpPipeline(Data.createValidator(passwordPolicy), passwordPolicy,
+                new EmailExistenceIndex(userRepository, new UserShards(1), null, false, 1000, 0.01),
+                userRepository, new SimpleMeterRegistry());
+        batchSignUpService = new BatchSignUpService(mapper, signUpPipeline,
+                new UserMapper(Mappers.getMapper(EntityMapper.class)), passwordHashingService, userBatchWriter, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Each user gets its own result line")
+    void batchSignUpTest() throws Exception {
+        UserDTO valid = Data.createUserDTO1().get();
+        UserDTO badPassword = Data.createUserDTO1().get();
+        badPassword.setEmail("otro@correo.com");
+        badPassword.setPassword("nocapsgg12");
+        UserDTO nextChunk = Data.createUserDTO1().get();
+        nextChunk.setEmail("tercero@correo.com");
+
+        doAnswer(invocation -> {
+            List<UserRegistration> registrations = invocation.getArgument(0);
+            registrations.forEach(r -> r.getUser().setId(UUID.randomUUID()));
+            return null;
+        }).when(userBatchWriter).write(any());
+
+        String body = mapper.writeValueAsString(valid) + "\n"
+                + mapper.writeValueAsString(badPassword) + "\n"
+                + mapper.writeValueAsString(nextChunk) + "\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        batchSignUpService.register(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        BatchSignUpResultDTO first = mapper.readValue(lines[0], BatchSignUpResultDTO.class);
+        BatchSignUpResultDTO second = mapper.readValue(lines[1], BatchSignUpResultDTO.class);
+        BatchSignUpResultDTO third = mapper.readValue(lines[2], BatchSignUpResultDTO.class);
+        assertAll(
+                () -> assertEquals(3, lines.length),
+                () -> assertEquals(BatchSignUpResultDTO.CREATED, first.getStatus()),
+                () -> assertNotNull(first.getId()),
+                () -> assertEquals(BatchSignUpResultDTO.REJECTED, second.getStatus()),
+                () -> assertEquals("Password must have a capital letter", second.getErrors().get(0)),
+                () -> assertEquals(2, third.getIndex()),
+                () -> assertEquals(BatchSignUpResultDTO.CREATED, third.getStatus())
+        );
+        verify(userBatchWriter, times(2)).write(any());
+    }
+}
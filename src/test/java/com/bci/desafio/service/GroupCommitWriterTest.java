@@ -0,0 +1,249 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.domain.User;
+import com.bci.desafio.exceptions.SignUpRejectedException;
+import com.bci.desafio.exceptions.UserAlreadyExistException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Group commit of sign-ups tests")
+@ExtendWith(MockitoExtension.class)
+class GroupCommitWriterTest {
+
+    @Mock
+    private UserBatchWriter userBatchWriter;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GroupCommitWriter groupCommitWriter;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        groupCommitWriter.shutdown();
+    }
+
+    @Test
+    @DisplayName("Concurrent sign-ups are written together and each one gets its own result")
+    @SuppressWarnings("unchecked")
+    void groupTest() throws Exception {
+        groupCommitWriter = new GroupCommitWriter(userBatchWriter, true, 3, Duration.ofHours(1), 100, meterRegistry);
+        doAnswer(invocation -> {
+            for (UserRegistration registration : (List<UserRegistration>) invocation.getArgument(0)) {
+                if (registration.getUser().getEmail().startsWith("repetido")) {
+                    registration.setFailure(new UserAlreadyExistException("There is already a user with the email "
+                            + registration.getUser().getEmail()));
+                } else {
+                    registration.getUser().setId(UUID.randomUUID());
+                }
+            }
+            return null;
+        }).when(userBatchWriter).write(anyList());
+
+        CompletableFuture<User> charlie = groupCommitWriter.submit(user("charlie_01@correo.com"));
+        CompletableFuture<User> repeated = groupCommitWriter.submit(user("repetido@correo.com"));
+        CompletableFuture<User> other = groupCommitWriter.submit(user("otro@correo.com"));
+
+        User stored = charlie.get(5, TimeUnit.SECONDS);
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> repeated.get(5, TimeUnit.SECONDS));
+        DistributionSummary batchSize = meterRegistry.get("users.signup.group_commit.batch.size").summary();
+
+        assertAll(
+                () -> assertEquals("charlie_01@correo.com", stored.getEmail()),
+                () -> assertNotNull(stored.getId()),
+                () -> assertNotNull(other.get(5, TimeUnit.SECONDS).getId()),
+                () -> assertTrue(ex.getCause() instanceof UserAlreadyExistException),
+                () -> assertEquals(1, batchSize.count()),
+                () -> assertEquals(3, batchSize.totalAmount()),
+                () -> assertEquals(3, meterRegistry.get("users.signup.group_commit.wait").timer().count())
+        );
+        verify(userBatchWriter, times(1)).write(anyList());
+    }
+
+    @Test
+    @DisplayName("A sign-up alone is written when the wait is over")
+    @SuppressWarnings("unchecked")
+    void maxWaitTest() throws Exception {
+        groupCommitWriter = new GroupCommitWriter(userBatchWriter, true, 50, Duration.ofMillis(20), 100, meterRegistry);
+        doAnswer(invocation -> {
+            ((List<UserRegistration>) invocation.getArgument(0)).forEach(r -> r.getUser().setId(UUID.randomUUID()));
+            return null;
+        }).when(userBatchWriter).write(anyList());
+
+        User stored = groupCommitWriter.submit(user("charlie_01@correo.com")).get(5, TimeUnit.SECONDS);
+
+        assertAll(
+                () -> assertNotNull(stored.getId()),
+                () -> assertEquals(1, meterRegistry.get("users.signup.group_commit.batch.size").summary().totalAmount()),
+                () -> assertTrue(meterRegistry.get("users.signup.group_commit.wait").timer()
+                        .totalTime(TimeUnit.MILLISECONDS) >= 20)
+        );
+    }
+
+    @Test
+    @DisplayName("A group that cannot be written fails every sign-up in it")
+    void writeFailureTest() {
+        groupCommitWriter = new GroupCommitWriter(userBatchWriter, true, 2, Duration.ofHours(1), 100, meterRegistry);
+        doThrow(new IllegalStateException("database down")).when(userBatchWriter).write(anyList());
+
+        CompletableFuture<User> charlie = groupCommitWriter.submit(user("charlie_01@correo.com"));
+        CompletableFuture<User> other = groupCommitWriter.submit(user("otro@correo.com"));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> charlie.get(5, TimeUnit.SECONDS));
+        assertAll(
+                () -> assertTrue(ex.getCause() instanceof IllegalStateException),
+                () -> assertThrows(ExecutionException.class, () -> other.get(5, TimeUnit.SECONDS))
+        );
+    }
+
+    @Test
+    @DisplayName("Sign-ups that find the queue full are rejected")
+    @SuppressWarnings("unchecked")
+    void queueFullTest() throws Exception {
+        groupCommitWriter = new GroupCommitWriter(userBatchWriter, true, 1, Duration.ofMillis(5), 1, meterRegistry);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            awaitUninterruptibly(release);
+            ((List<UserRegistration>) invocation.getArgument(0)).forEach(r -> r.getUser().setId(UUID.randomUUID()));
+            return null;
+        }).when(userBatchWriter).write(anyList());
+
+        CompletableFuture<User> written = groupCommitWriter.submit(user("charlie_01@correo.com"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<User> queued = groupCommitWriter.submit(user("otro@correo.com"));
+        CompletableFuture<User> rejected = groupCommitWriter.submit(user("tercero@correo.com"));
+        release.countDown();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertAll(
+                () -> assertTrue(ex.getCause() instanceof SignUpRejectedException),
+                () -> assertNotNull(written.get(5, TimeUnit.SECONDS).getId()),
+                () -> assertNotNull(queued.get(5, TimeUnit.SECONDS).getId()),
+                () -> assertEquals(1, meterRegistry.get("users.signup.group_commit.rejected").counter().count())
+        );
+        verify(userBatchWriter, times(2)).write(anyList());
+    }
+
+    @Test
+    @DisplayName("Sign-ups submitted after the shutdown started are rejected")
+    void submitAfterShutdownTest() throws Exception {
+        groupCommitWriter = new GroupCommitWriter(userBatchWriter, true, 50, Duration.ofMillis(5), 100, meterRegistry);
+        groupCommitWriter.shutdown();
+
+        CompletableFuture<User> late = groupCommitWriter.submit(user("charlie_01@correo.com"));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof SignUpRejectedException);
+        verifyNoInteractions(userBatchWriter);
+    }
+
+    @Test
+    @DisplayName("Sign-ups still queued when the shutdown times out are failed, the one being written completes")
+    @SuppressWarnings("unchecked")
+    void shutdownTimeoutTest() throws Exception {
+        groupCommitWriter = new GroupCommitWriter(userBatchWriter, true, 1, Duration.ofMillis(5), 100, meterRegistry);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            awaitUninterruptibly(release);
+            ((List<UserRegistration>) invocation.getArgument(0)).forEach(r -> r.getUser().setId(UUID.randomUUID()));
+            return null;
+        }).when(userBatchWriter).write(anyList());
+
+        CompletableFuture<User> written = groupCommitWriter.submit(user("charlie_01@correo.com"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<User> queued = groupCommitWriter.submit(user("otro@correo.com"));
+        groupCommitWriter.shutdown();
+        release.countDown();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertAll(
+                () -> assertTrue(ex.getCause() instanceof SignUpRejectedException),
+                () -> assertNotNull(written.get(5, TimeUnit.SECONDS).getId())
+        );
+        verify(userBatchWriter, times(1)).write(anyList());
+    }
+
+    @Test
+    @DisplayName("Every sign-up submitted while shutting down is either stored or failed")
+    @SuppressWarnings("unchecked")
+    void shutdownWhileSubmittingTest() throws Exception {
+        groupCommitWriter = new GroupCommitWriter(userBatchWriter, true, 10, Duration.ofMillis(1), 2000, meterRegistry);
+        lenient().doAnswer(invocation -> {
+            ((List<UserRegistration>) invocation.getArgument(0)).forEach(r -> r.getUser().setId(UUID.randomUUID()));
+            return null;
+        }).when(userBatchWriter).write(anyList());
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(4);
+        List<Future<List<CompletableFuture<User>>>> submitted = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            submitted.add(submitters.submit(() -> {
+                List<CompletableFuture<User>> futures = new ArrayList<>();
+                started.countDown();
+                for (int i = 0; i < 500; i++) {
+                    futures.add(groupCommitWriter.submit(user("user" + thread + "_" + i + "@correo.com")));
+                }
+                return futures;
+            }));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        groupCommitWriter.shutdown();
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (Future<List<CompletableFuture<User>>> thread : submitted) {
+            futures.addAll(thread.get(5, TimeUnit.SECONDS));
+        }
+        submitters.shutdown();
+
+        for (CompletableFuture<User> future : futures) {
+            try {
+                assertNotNull(future.get(5, TimeUnit.SECONDS).getId());
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SignUpRejectedException, e::toString);
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // the shutdown interrupts the writer, the test decides when the write ends
+            }
+        }
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        return user;
+    }
+}
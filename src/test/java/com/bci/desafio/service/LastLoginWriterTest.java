@@ -0,0 +1,105 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.datasource.UserShards;
+import com.bci.desafio.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Last login write-behind tests")
+@ExtendWith(MockitoExtension.class)
+class LastLoginWriterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LastLoginWriter lastLoginWriter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lastLoginWriter = new LastLoginWriter(userRepository, jdbcTemplate, new UserShards(1), true, Duration.ofHours(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lastLoginWriter.shutdown();
+    }
+
+    @Test
+    @DisplayName("Only the latest login per user is written, in one batch")
+    @SuppressWarnings("unchecked")
+    void coalescedFlushTest() {
+        UUID charlie = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        LocalDateTime first = LocalDateTime.of(2023, 5, 1, 10, 0);
+        LocalDateTime second = first.plusMinutes(1);
+
+        lastLoginWriter.record(charlie, "charlie_01@correo.com", first);
+        lastLoginWriter.record(charlie, "charlie_01@correo.com", second);
+        lastLoginWriter.record(other, "otro@correo.com", first);
+
+        assertEquals(2, lastLoginWriter.flush());
+        assertEquals(0, lastLoginWriter.flush());
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE users SET last_login = ? WHERE id = ?"), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        Object[] charlieRow = rows.getValue().stream().filter(r -> charlie.equals(r[1])).findFirst().orElse(null);
+        assertNotNull(charlieRow);
+        assertEquals(Timestamp.valueOf(second), charlieRow[0]);
+        verify(userRepository, never()).updateLastLogin(any(), any());
+    }
+
+    @Test
+    @DisplayName("The staleness clears once nothing is pending and survives logins recorded during a flush")
+    void stalenessTest() {
+        UUID charlie = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        LocalDateTime login = LocalDateTime.of(2023, 5, 1, 10, 0);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            lastLoginWriter.record(other, "otro@correo.com", login);
+            return new int[0];
+        }).thenReturn(new int[0]);
+
+        lastLoginWriter.record(charlie, "charlie_01@correo.com", login);
+        assertEquals(1, lastLoginWriter.flush());
+        double recordedDuringFlush = staleness();
+        assertEquals(1, lastLoginWriter.flush());
+
+        assertAll(
+                () -> assertTrue(recordedDuringFlush > 0),
+                () -> assertEquals(0, pending()),
+                () -> assertEquals(0, staleness())
+        );
+    }
+
+    private double staleness() {
+        return meterRegistry.get("users.last_login.staleness").gauge().value();
+    }
+
+    private double pending() {
+        return meterRegistry.get("users.last_login.pending").gauge().value();
+    }
+}
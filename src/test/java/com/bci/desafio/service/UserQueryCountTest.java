@@ -0,0 +1,110 @@
+package com.bci.desafio.service;
+
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.dto.LoginResponseDTO;
+import com.bci.desafio.dto.UserDTO;
+import com.bci.desafio.dto.UserResponseDTO;
+import com.bci.desafio.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Queries per endpoint")
+@SpringBootTest
+@ActiveProfiles("statistics")
+class UserQueryCountTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Sign-up inserts the user and its phones without reading them back")
+    void signUpQueryCountTest() {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        userDTO.setEmail("sign_up_count@correo.com");
+
+        UserResponseDTO response = userService.userRegister(userDTO).join();
+
+        assertNotNull(response.getToken());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+    }
+
+    @Test
+    @DisplayName("Login reads the user and phones from the second-level cache and only updates the last login")
+    void loginQueryCountTest() {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        userDTO.setEmail("login_count@correo.com");
+        String token = userService.userRegister(userDTO).join().getToken();
+        userService.login(token);
+        statistics.clear();
+
+        LoginResponseDTO response = userService.login(token);
+
+        assertAll(
+                () -> assertEquals(2, response.getPhones().size()),
+                () -> assertEquals(1, statistics.getPrepareStatementCount()),
+                () -> assertEquals(1, statistics.getNaturalIdCacheHitCount()),
+                () -> assertEquals(0, statistics.getSecondLevelCacheMissCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Login with a cold cache reads the user and its phones with one query and caches them")
+    void coldLoginQueryCountTest() {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        userDTO.setEmail("cold_login_count@correo.com");
+        String token = userService.userRegister(userDTO).join().getToken();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        LoginResponseDTO response = userService.login(token);
+        long coldStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        userService.login(token);
+
+        assertAll(
+                () -> assertEquals(2, response.getPhones().size()),
+                // the fetch-join select and the last login update
+                () -> assertEquals(2, coldStatements),
+                () -> assertEquals(1, statistics.getPrepareStatementCount()),
+                () -> assertEquals(1, statistics.getNaturalIdCacheHitCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Deactivation evicts the cached user")
+    void deactivateEvictsCachedUserTest() {
+        UserDTO userDTO = Data.createUserDTO1().get();
+        userDTO.setEmail("deactivate_count@correo.com");
+        userService.userRegister(userDTO).join();
+        assertTrue(userRepository.findByEmail("deactivate_count@correo.com").get().isActive());
+
+        userService.deactivate("deactivate_count@correo.com");
+
+        assertFalse(userRepository.findByEmail("deactivate_count@correo.com").get().isActive());
+    }
+}
@@ -1,5 +1,7 @@
 package com.bci.desafio.service;
 
+import com.bci.desafio.datasource.RecentWrites;
+import com.bci.desafio.datasource.UserShards;
 import com.bci.desafio.datos.Data;
 import com.bci.desafio.domain.User;
 import com.bci.desafio.dto.LoginResponseDTO;
@@ -7,21 +9,38 @@ import com.bci.desafio.dto.UserDTO;
 import com.bci.desafio.dto.UserResponseDTO;
 import com.bci.desafio.exceptions.ConstraintsException;
 import com.bci.desafio.exceptions.UserAlreadyExistException;
+import com.bci.desafio.mapper.EntityMapper;
 import com.bci.desafio.mapper.UserMapper;
-import com.bci.desafio.repository.PhoneRepository;
 import com.bci.desafio.repository.UserRepository;
-import com.bci.desafio.security.service.UserDetailsServiceImpl;
+import com.bci.desafio.security.service.CachingAuthenticationProvider;
+import com.bci.desafio.security.service.PasswordHashingService;
+import com.bci.desafio.security.service.TokenEpochs;
+import com.bci.desafio.security.service.UserDetailsCache;
 import com.bci.desafio.security.utils.JWTUtils;
+import com.bci.desafio.validation.PasswordPolicy;
+import com.bci.desafio.validation.PasswordPolicyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,19 +52,57 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PhoneRepository phoneRepository;
+    private JWTUtils jwtUtils;
 
     @Mock
-    private JWTUtils jwtUtils;
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private CachingAuthenticationProvider basicAuthProvider;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private GroupCommitWriter groupCommitWriter;
 
-    @InjectMocks
     private UserServiceImpl userService;
 
+    private PasswordHashingService passwordHashingService;
+
+    private EmailExistenceIndex emailExistenceIndex;
+
+    private TokenEpochs tokenEpochs;
+
+    private SignUpExecutor signUpExecutor;
+
+    private SignUpPipeline signUpPipeline;
+
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
-        userService = new UserServiceImpl(userRepository, phoneRepository,
-                new UserDetailsServiceImpl(userRepository), jwtUtils,
-                new UserMapper(new BCryptPasswordEncoder(), new ModelMapper()));
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(), 1, 10, new SimpleMeterRegistry());
+        signUpExecutor = new SignUpExecutor(2, 10, new SimpleMeterRegistry());
+        UserShards userShards = new UserShards(1);
+        emailExistenceIndex = new EmailExistenceIndex(userRepository, userShards, transactionManager, true, 1000, 0.01);
+        tokenEpochs = new TokenEpochs(userRepository, userShards);
+        meterRegistry = new SimpleMeterRegistry();
+        PasswordPolicy passwordPolicy = new PasswordPolicy(new PasswordPolicyProperties());
+        signUpPipeline = new SignUpPipeline(Data.createValidator(passwordPolicy), passwordPolicy, emailExistenceIndex,
+                userRepository, meterRegistry);
+        userService = new UserServiceImpl(userRepository, jwtUtils,
+                new UserMapper(Mappers.getMapper(EntityMapper.class)), passwordHashingService, signUpPipeline,
+                emailExistenceIndex,
+                new LastLoginWriter(userRepository, null, userShards, false, Duration.ofSeconds(5), new SimpleMeterRegistry()),
+                tokenEpochs, userDetailsCache, basicAuthProvider, new RecentWrites(Duration.ofSeconds(5)),
+                groupCommitWriter, signUpExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+        signUpExecutor.shutdown();
     }
 
     @Test
@@ -77,17 +134,36 @@ class UserServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Every sign-up check is timed")
+    void signUpStagesTimedTest() {
+        User user = Data.createUser1().orElse(null);
+        when(userRepository.save(any())).thenReturn(user);
+
+        userService.userRegister(Data.createUserDTO1().get()).join();
+        UserDTO badPassword = Data.createUserDTO1().get();
+        badPassword.setPassword("nocapitallet");
+        assertThrows(ConstraintsException.class, () -> userService.userRegister(badPassword));
+
+        assertAll(
+                () -> assertEquals(2, stageCount(SignUpPipeline.SYNTAX, "passed")),
+                () -> assertEquals(1, stageCount(SignUpPipeline.PASSWORD_POLICY, "passed")),
+                () -> assertEquals(1, stageCount(SignUpPipeline.PASSWORD_POLICY, "rejected")),
+                () -> assertEquals(1, stageCount(SignUpPipeline.DUPLICATE_EMAIL, "passed")),
+                () -> assertEquals(1, stageCount(SignUpPipeline.PERSIST, "passed"))
+        );
+    }
+
     @Test
     @DisplayName("Save user")
     void saveUserTest() {
 
         User user = Data.createUser1().orElse(null);
-        when(userRepository.findByEmail(any())).thenReturn(Data.createUser1());
-        when(phoneRepository.saveAll(any())).thenReturn(Data.createPhoneList(user));
         when(userRepository.save(any())).thenReturn(user);
+        when(jwtUtils.generateToken(any(User.class))).thenReturn("token");
 
         UserDTO userDTO = Data.createUserDTO1().orElse(null);
-        UserResponseDTO savedUSer = userService.userRegister(userDTO);
+        UserResponseDTO savedUSer = userService.userRegister(userDTO).join();
 
         assertAll(
                 () -> assertNotNull(savedUSer),
@@ -100,11 +176,62 @@ class UserServiceTest {
                 () -> assertEquals(user.isActive(), savedUSer.getUser().isActive())
         );
 
-        verify(userRepository).findByEmail(any());
-        verify(userRepository).save(any(User.class));
+        verify(userRepository, never()).findByEmail(any());
+        verify(userRepository).save(argThat(u -> u.getPhones().size() == 2));
+        verify(jwtUtils).generateToken(user);
 
     }
 
+    @Test
+    @DisplayName("The hashing thread is released before the user is stored")
+    void hashingPoolReleasedBeforeSaveTest() throws Exception {
+        User user = Data.createUser1().orElse(null);
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> saveThread = new AtomicReference<>();
+        when(userRepository.save(any())).thenAnswer(invocation -> {
+            saveThread.set(Thread.currentThread().getName());
+            saving.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return user;
+        });
+        when(jwtUtils.generateToken(user)).thenReturn("token");
+
+        CompletableFuture<UserResponseDTO> registration = userService.userRegister(Data.createUserDTO1().get());
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        // The hashing pool has a single thread: this only completes if the save is not holding it
+        String otherHash = passwordHashingService.encode("Otra12clave").get(5, TimeUnit.SECONDS);
+        release.countDown();
+
+        assertAll(
+                () -> assertNotNull(otherHash),
+                () -> assertTrue(saveThread.get().startsWith("sign-up-"), saveThread::get),
+                () -> assertEquals("token", registration.get(5, TimeUnit.SECONDS).getToken())
+        );
+    }
+
+    @Test
+    @DisplayName("With group commit the user is stored by the group and the duplicate failure is its own")
+    void groupCommitTest() {
+        User user = Data.createUser1().orElse(null);
+        when(groupCommitWriter.isEnabled()).thenReturn(true);
+        when(groupCommitWriter.submit(any())).thenReturn(CompletableFuture.completedFuture(user),
+                failed(new UserAlreadyExistException("There is already a user with the email " + user.getEmail())));
+        when(jwtUtils.generateToken(user)).thenReturn("token");
+
+        UserResponseDTO savedUser = userService.userRegister(Data.createUserDTO1().get()).join();
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> userService.userRegister(Data.createUserDTO1().get()).join());
+
+        assertAll(
+                () -> assertEquals(user.getEmail(), savedUser.getUser().getEmail()),
+                () -> assertEquals("token", savedUser.getToken()),
+                () -> assertTrue(ex.getCause() instanceof UserAlreadyExistException)
+        );
+        verify(groupCommitWriter, times(2)).submit(argThat(u -> u.getPhones().size() == 2));
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Existing User")
     void existingUserTest() {
@@ -121,14 +248,42 @@ class UserServiceTest {
 
     }
 
+    @Test
+    @DisplayName("New email skips the existence query")
+    void newEmailSkipsExistsQueryTest() {
+        User user = Data.createUser1().orElse(null);
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("other@correo.com"));
+        when(userRepository.save(any())).thenReturn(user);
+        emailExistenceIndex.warmUp();
+
+        UserResponseDTO savedUser = userService.userRegister(Data.createUserDTO1().get()).join();
+
+        assertEquals(user.getEmail(), savedUser.getUser().getEmail());
+        verify(userRepository, never()).existsByEmail(any(String.class));
+        assertTrue(emailExistenceIndex.mightExist(user.getEmail()));
+    }
+
+    @Test
+    @DisplayName("Unique constraint violation is reported as existing user")
+    void concurrentSignUpTest() {
+        when(userRepository.save(any())).thenThrow(new DataIntegrityViolationException("users.email"));
+        when(userRepository.existsByEmail(any())).thenReturn(false, true);
+
+        UserDTO userDTO = Data.createUserDTO1().orElse(null);
+        CompletionException ex = assertThrows(CompletionException.class, () -> userService.userRegister(userDTO).join());
+        assertTrue(ex.getCause() instanceof UserAlreadyExistException);
+
+        verify(userRepository, times(2)).existsByEmail(any(String.class));
+    }
+
     @Test
     @DisplayName("Login test")
     void loginTest() {
         User user = Data.createUser1().orElse(null);
-        when(userRepository.findByEmail(any())).thenReturn(Data.createUser1());
-        when(userRepository.save(any())).thenReturn(user);
-        when(phoneRepository.findByUser(any())).thenReturn(Data.createPhoneList(user));
-        when(jwtUtils.generateToken(any())).thenReturn("token nuevo");
+        when(jwtUtils.getUsername("token actual")).thenReturn(user.getEmail());
+        user.setPhones(Data.createPhoneList());
+        when(userRepository.findWithPhonesByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(jwtUtils.generateToken(user)).thenReturn("token nuevo");
 
         LoginResponseDTO loginResponseDTO = userService.login("token actual");
 
@@ -144,5 +299,55 @@ class UserServiceTest {
                 () -> assertEquals(261, loginResponseDTO.getPhones().get(0).getCityCode()),
                 () -> assertEquals("+54", loginResponseDTO.getPhones().get(0).getCountryCode())
         );
+        verify(userRepository).updateLastLogin(eq(user.getId()), any());
+        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    @DisplayName("Login of an unknown user")
+    void loginUnknownUserTest() {
+        when(jwtUtils.getUsername("token actual")).thenReturn("nadie@correo.com");
+
+        assertThrows(UsernameNotFoundException.class, () -> userService.login("token actual"));
+        verify(userRepository, never()).updateLastLogin(any(), any());
+    }
+
+    @Test
+    @DisplayName("Logout from every session revokes the tokens already issued")
+    void logoutAllTest() {
+        when(userRepository.findTokenEpochByEmail("charlie_01@correo.com")).thenReturn(Optional.of(1));
+
+        userService.logoutAll("charlie_01@correo.com");
+
+        assertAll(
+                () -> assertFalse(tokenEpochs.isCurrent("charlie_01@correo.com", 0)),
+                () -> assertTrue(tokenEpochs.isCurrent("charlie_01@correo.com", 1)),
+                () -> assertTrue(tokenEpochs.isCurrent("otro@correo.com", 0))
+        );
+        verify(userRepository).advanceTokenEpoch("charlie_01@correo.com");
+    }
+
+    @Test
+    @DisplayName("Deactivated users lose their tokens and cached details")
+    void deactivateTest() {
+        when(userRepository.findTokenEpochByEmail("charlie_01@correo.com")).thenReturn(Optional.of(3));
+
+        userService.deactivate("charlie_01@correo.com");
+
+        assertFalse(tokenEpochs.isCurrent("charlie_01@correo.com", 2));
+        verify(userRepository).deactivate("charlie_01@correo.com");
+        verify(userDetailsCache).invalidate("charlie_01@correo.com");
+        verify(basicAuthProvider).invalidate("charlie_01@correo.com");
+    }
+
+    private long stageCount(String stage, String outcome) {
+        return meterRegistry.get("users.signup.stage").tag("stage", stage).tag("outcome", outcome).timer().count();
+    }
+
+    private static <T> CompletableFuture<T> failed(RuntimeException e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
     }
 }
@@ -0,0 +1,103 @@
+package com.bci.desafio.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Bloom filter tests")
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 10_000;
+
+    @Test
+    @DisplayName("Every value added is found")
+    void noFalseNegativesTest() {
+        BloomFilter bloomFilter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            bloomFilter.put(email(i));
+        }
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(bloomFilter.mightContain(email(i)), email(i));
+        }
+    }
+
+    @Test
+    @DisplayName("The false positive rate stays close to the configured one")
+    void falsePositiveRateTest() {
+        for (double configured : new double[]{0.01, 0.001}) {
+            BloomFilter bloomFilter = new BloomFilter(INSERTIONS, configured);
+            for (int i = 0; i < INSERTIONS; i++) {
+                bloomFilter.put(email(i));
+            }
+
+            int lookups = 200_000;
+            int falsePositives = 0;
+            for (int i = INSERTIONS; i < INSERTIONS + lookups; i++) {
+                if (bloomFilter.mightContain(email(i))) {
+                    falsePositives++;
+                }
+            }
+
+            double observed = (double) falsePositives / lookups;
+            assertTrue(observed < configured * 2, () -> "Configured " + configured + ", observed " + observed);
+        }
+    }
+
+    @Test
+    @DisplayName("Values added from several threads are found while others read")
+    void concurrentTest() throws Exception {
+        BloomFilter bloomFilter = new BloomFilter(INSERTIONS, 0.01);
+        int threads = 4;
+        int perThread = INSERTIONS / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> missing = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread;
+                missing.add(executor.submit(() -> {
+                    start.await();
+                    int notFound = 0;
+                    for (int i = first; i < first + perThread; i++) {
+                        bloomFilter.put(email(i));
+                        if (!bloomFilter.mightContain(email(i))) {
+                            notFound++;
+                        }
+                    }
+                    return notFound;
+                }));
+                missing.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INSERTIONS; i++) {
+                        bloomFilter.mightContain(email(i));
+                    }
+                    return 0;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> thread : missing) {
+                assertEquals(0, thread.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(bloomFilter.mightContain(email(i)), email(i));
+        }
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@correo.com";
+    }
+}
@@ -0,0 +1,91 @@
+package com.bci.desafio.validation;
+
+import com.bci.desafio.datos.Data;
+import com.bci.desafio.dto.UserDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Password policy tests")
+class PasswordPolicyTest {
+
+    private PasswordPolicyProperties properties;
+
+    private PasswordPolicy passwordPolicy;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PasswordPolicyProperties();
+        passwordPolicy = new PasswordPolicy(properties);
+    }
+
+    @Test
+    @DisplayName("Valid password")
+    void validPasswordTest() {
+        assertTrue(passwordPolicy.validate("Jajaja57b").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Every broken rule is reported")
+    void allViolationsTest() {
+        List<String> violations = passwordPolicy.validate("nocap");
+
+        assertEquals(Arrays.asList(
+                "The password must be between 8 and 12 characters",
+                "Password must have a capital letter",
+                "Password must have two numbers"), violations);
+    }
+
+    @Test
+    @DisplayName("Rules come from the configuration")
+    void configuredRulesTest() {
+        properties.getCapitals().setExact(null);
+        properties.getCapitals().setMin(2);
+        properties.getSpecial().setMin(1);
+
+        List<String> violations = passwordPolicy.validate("Jajaja57b");
+
+        assertEquals(Arrays.asList(
+                "Password must have a capital letter",
+                "Password does not have the required amount of special characters"), violations);
+        assertTrue(passwordPolicy.validate("JAjaja57b!").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Accented letters are letters, not special characters")
+    void accentedLettersTest() {
+        properties.getSpecial().setMin(1);
+
+        assertAll(
+                () -> assertEquals(Arrays.asList(
+                        "Password does not have the required amount of special characters"),
+                        passwordPolicy.validate("\u00d1and\u00fa12x")),
+                () -> assertEquals(Arrays.asList(
+                        "Password must have a capital letter",
+                        "Password does not have the required amount of special characters"),
+                        passwordPolicy.validate("\u00f1and\u00fa12\u00e9")),
+                () -> assertTrue(passwordPolicy.validate("\u00d1and\u00fa12!").isEmpty())
+        );
+    }
+
+    @Test
+    @DisplayName("The password constraint checks the configured policy")
+    void constraintTest() {
+        properties.getCapitals().setExact(null);
+        properties.getCapitals().setMin(2);
+        UserDTO userDTO = Data.createUserDTO1().get();
+        userDTO.setPassword("Jajaja57b");
+
+        List<String> violations = Data.createValidator(passwordPolicy).validate(userDTO, PasswordChecks.class).stream()
+                .map(violation -> violation.getMessage())
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("Password must have a capital letter"), violations);
+    }
+}